@@ -0,0 +1,98 @@
+package info.blockchain.api.benchmark;
+
+import info.blockchain.api.etc.Base58;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Base58 encoding and decoding of the payload sizes found in practice:
+ * <ul>
+ * <li>address - version byte and hash160 of a P2PKH or P2SH address (21 bytes, 34 characters)</li>
+ * <li>wif - version byte, private key and compression flag of a WIF key (34 bytes, 52 characters)</li>
+ * <li>xpub - a BIP32 extended public key (78 bytes, 111 characters)</li>
+ * </ul>
+ * Every operation takes the next of 1024 generated payloads, so results are not skewed by
+ * repeating one input. Run with -prof gc to also report the bytes allocated per operation
+ * (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class Base58Benchmark {
+    private static final int PAYLOADS = 1024;
+
+    @Param({"address", "wif", "xpub"})
+    public String payload;
+
+    private byte[][] data;
+    private byte[][] checked;
+    private String[] encoded;
+    private int next;
+
+    @Setup
+    public void setUp () {
+        Random random = new Random(58);
+        data = new byte[PAYLOADS][];
+        checked = new byte[PAYLOADS][];
+        encoded = new String[PAYLOADS];
+        for (int i = 0; i < PAYLOADS; i++) {
+            data[i] = payload(random);
+            checked[i] = Arrays.copyOf(data[i], data[i].length + 4);
+            System.arraycopy(Base58.hashTwice(data[i]), 0, checked[i], data[i].length, 4);
+            encoded[i] = Base58.encode(checked[i]);
+        }
+    }
+
+    private byte[] payload (Random random) {
+        switch (payload) {
+            case "address":
+                return withPrefix(random, new byte[]{0x00}, 20);
+            case "wif":
+                byte[] key = withPrefix(random, new byte[]{(byte) 0x80}, 33);
+                key[key.length - 1] = 0x01;
+                return key;
+            case "xpub":
+                return withPrefix(random, new byte[]{0x04, (byte) 0x88, (byte) 0xB2, 0x1E}, 74);
+            default:
+                throw new IllegalArgumentException("Unknown payload " + payload);
+        }
+    }
+
+    private static byte[] withPrefix (Random random, byte[] prefix, int length) {
+        byte[] bytes = new byte[prefix.length + length];
+        random.nextBytes(bytes);
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        return bytes;
+    }
+
+    private int next () {
+        return next = (next + 1) & (PAYLOADS - 1);
+    }
+
+    @Benchmark
+    public String encode () {
+        return Base58.encode(checked[next()]);
+    }
+
+    @Benchmark
+    public byte[] decode () throws ParseException {
+        return Base58.decode(encoded[next()]);
+    }
+
+    @Benchmark
+    public byte[] decodeChecked () throws ParseException {
+        return Base58.decodeChecked(encoded[next()]);
+    }
+
+    @Benchmark
+    public byte[] hashTwice () {
+        return Base58.hashTwice(data[next()]);
+    }
+}
@@ -0,0 +1,97 @@
+package info.blockchain.api.benchmark;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import info.blockchain.api.blockexplorer.entity.Block;
+import info.blockchain.api.blockexplorer.entity.MultiAddress;
+import info.blockchain.api.blockexplorer.entity.Transaction;
+import info.blockchain.api.statistics.Chart;
+import info.blockchain.api.statistics.StatisticsResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building entities from API responses. The *Mapping benchmarks start from an
+ * already parsed JSON tree, the *Parsing benchmarks include parsing the response text.
+ * Run with -prof gc to also report the bytes allocated per operation (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class EntityParsingBenchmark {
+
+    private String blockJson;
+    private JsonObject block;
+    private JsonObject transaction;
+    private JsonObject multiAddress;
+    private String statistics;
+    private JsonObject chart;
+
+    @Setup
+    public void setUp () {
+        JsonParser parser = new JsonParser();
+        blockJson = Fixtures.read("block.json");
+        block = parser.parse(blockJson).getAsJsonObject();
+        transaction = parser.parse(Fixtures.read("transaction.json")).getAsJsonObject();
+        multiAddress = parser.parse(Fixtures.read("multiaddr.json")).getAsJsonObject();
+        statistics = Fixtures.read("stats.json");
+        chart = parser.parse(Fixtures.read("chart-market-price.json")).getAsJsonObject();
+    }
+
+    @Benchmark
+    public Block blockMapping () {
+        return new Block(block);
+    }
+
+    @Benchmark
+    public Block blockParsing () {
+        return new Block(new JsonParser().parse(blockJson).getAsJsonObject());
+    }
+
+    /**
+     * The streaming reader getBlock uses, for comparison with blockParsing.
+     */
+    @Benchmark
+    public Block blockStreaming () throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(blockJson))) {
+            return Block.read(reader);
+        }
+    }
+
+    /**
+     * Streaming into a compact block, whose transactions share one array per input and output field.
+     */
+    @Benchmark
+    public Block blockCompactStreaming () throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(blockJson))) {
+            return Block.readCompact(reader);
+        }
+    }
+
+    @Benchmark
+    public Transaction transactionMapping () {
+        return new Transaction(transaction);
+    }
+
+    @Benchmark
+    public MultiAddress multiAddressMapping () {
+        return new MultiAddress(multiAddress);
+    }
+
+    @Benchmark
+    public StatisticsResponse statisticsParsing () {
+        return new StatisticsResponse(statistics);
+    }
+
+    @Benchmark
+    public Chart chartMapping () {
+        return new Chart(chart);
+    }
+}
@@ -8,7 +8,35 @@ package info.blockchain.api;
 public class APIException extends Exception {
     private static final long serialVersionUID = -7731961787745059713L;
 
+    private final int statusCode;
+    private final long retryAfterMillis;
+
     public APIException (String message) {
+        this(message, 0, -1);
+    }
+
+    /**
+     * @param message          Error message returned by the server
+     * @param statusCode       HTTP status code of the response
+     * @param retryAfterMillis Delay requested by the Retry-After header, -1 if there was none
+     */
+    public APIException (String message, int statusCode, long retryAfterMillis) {
         super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return HTTP status code of the response, 0 if it is not known
+     */
+    public int getStatusCode () {
+        return statusCode;
+    }
+
+    /**
+     * @return Delay the server asked for before the request is repeated, -1 if it did not ask
+     */
+    public long getRetryAfterMillis () {
+        return retryAfterMillis;
     }
 }
@@ -0,0 +1,16 @@
+package info.blockchain.api;
+
+import java.io.IOException;
+
+/**
+ * A single call to the Blockchain API that may fail with the same exceptions as the
+ * blocking methods of the service classes.
+ *
+ * @param <T> Type of the call's result
+ */
+@FunctionalInterface
+public interface ApiCall<T> {
+
+    T call () throws APIException, IOException;
+
+}
@@ -0,0 +1,198 @@
+package info.blockchain.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the `*Async` methods of the service classes. All service classes share the
+ * instance returned by getDefault() unless another one is passed to their constructor.
+ * <p>
+ * The default pool is bounded to DEFAULT_MAX_THREADS named daemon threads that time out
+ * when idle, so an application that never calls close() can still exit normally.
+ */
+public class AsyncExecutor implements Closeable {
+    public static final int DEFAULT_MAX_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    public static final String DEFAULT_THREAD_NAME_PREFIX = "blockchain-api-async";
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private static AsyncExecutor defaultInstance;
+
+    private final ExecutorService executorService;
+
+    public AsyncExecutor () {
+        this(DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * @param maxThreads Maximum number of threads running API calls at the same time
+     */
+    public AsyncExecutor (int maxThreads) {
+        this(maxThreads, DEFAULT_THREAD_NAME_PREFIX);
+    }
+
+    /**
+     * @param maxThreads       Maximum number of threads running API calls at the same time
+     * @param threadNamePrefix Prefix of the names given to the pool's threads
+     */
+    public AsyncExecutor (int maxThreads, String threadNamePrefix) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1");
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory(threadNamePrefix));
+        pool.allowCoreThreadTimeOut(true);
+        this.executorService = pool;
+    }
+
+    /**
+     * @param executorService Executor to run API calls on. It is shut down when this instance is closed.
+     */
+    public AsyncExecutor (ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every API call.
+     * Requires JDK 21 or later.
+     *
+     * @return An instance of the {@link AsyncExecutor} class backed by virtual threads
+     * @throws UnsupportedOperationException If the running JVM does not support virtual threads
+     */
+    public static AsyncExecutor virtualThreads () {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return new AsyncExecutor((ExecutorService) factory.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later", e);
+        }
+    }
+
+    /**
+     * @return The executor shared by all service classes that were not given one explicitly
+     */
+    public synchronized static AsyncExecutor getDefault () {
+        if (defaultInstance == null || defaultInstance.isClosed()) {
+            defaultInstance = new AsyncExecutor();
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Replaces the shared executor. Service classes created afterwards will use it.
+     *
+     * @param executor The new shared executor
+     */
+    public synchronized static void setDefault (AsyncExecutor executor) {
+        defaultInstance = executor;
+    }
+
+    /**
+     * Runs the given call on this executor.
+     *
+     * @param call The API call to run
+     * @return A future completed with the call's result or the exception it threw
+     */
+    public <T> CompletableFuture<T> supply (ApiCall<T> call) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        try {
+            executorService.execute(() -> {
+                try {
+                    completableFuture.complete(call.call());
+                } catch (APIException | IOException | RuntimeException e) {
+                    completableFuture.completeExceptionally(e);
+                } catch (Error e) {
+                    // Fail the future so that callers do not wait forever, then let the thread report the error
+                    completableFuture.completeExceptionally(e);
+                    throw e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            completableFuture.completeExceptionally(e);
+        }
+        return completableFuture;
+    }
+
+    /**
+     * Waits for a future returned by an `*Async` method and rethrows its failure the way
+     * the blocking methods do.
+     *
+     * @param future The future to wait for
+     * @return The result of the future
+     * @throws APIException If the server returned an error
+     * @throws IOException  If the request failed or the thread was interrupted while waiting
+     */
+    public static <T> T join (Future<T> future) throws APIException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof APIException) {
+                throw (APIException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return The underlying executor service
+     */
+    public ExecutorService getExecutorService () {
+        return executorService;
+    }
+
+    /**
+     * @return Whether close() has been called
+     */
+    public boolean isClosed () {
+        return executorService.isShutdown();
+    }
+
+    /**
+     * Stops accepting new calls. Calls that were already submitted still complete.
+     */
+    @Override
+    public void close () {
+        executorService.shutdown();
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+        private final String namePrefix;
+
+        DaemonThreadFactory (String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread (Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package info.blockchain.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking counterpart of {@link HttpClientInterface}. If the client installed via
+ * HttpClient.setCustomHttpClient(...) also implements this interface, the `*Async` methods of
+ * the service classes use it directly instead of blocking a thread per request.
+ * <p>
+ * The returned futures complete exceptionally with an {@link APIException} if the server
+ * returns an error and with an {@link java.io.IOException} if the server is not reachable.
+ */
+public interface AsyncHttpClientInterface {
+
+    CompletableFuture<String> getAsync (String resource, Map<String, String> params);
+
+    CompletableFuture<String> getAsync (String baseURL, String resource, Map<String, String> params);
+
+    CompletableFuture<String> postAsync (String resource, Map<String, String> params);
+
+    CompletableFuture<String> postAsync (String baseURL, String resource, Map<String, String> params);
+
+    /**
+     * Perform a GET request and pass the response body to the given handler once it has been
+     * received. Implementations that receive the body as bytes should override this method;
+     * by default the body is received as a String first.
+     */
+    default <T> CompletableFuture<T> getAsync (String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        return getAsync(resource, params).thenApply(response -> handle(response.getBytes(StandardCharsets.UTF_8), handler));
+    }
+
+    default <T> CompletableFuture<T> getAsync (String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        return getAsync(baseURL, resource, params).thenApply(response -> handle(response.getBytes(StandardCharsets.UTF_8), handler));
+    }
+
+    /**
+     * Runs a handler on a received body, for use in CompletableFuture stages.
+     *
+     * @throws CompletionException wrapping the IOException thrown by the handler
+     */
+    static <T> T handle (byte[] body, ResponseHandler<T> handler) {
+        try (InputStream in = new ByteArrayInputStream(body)) {
+            return handler.handle(in);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+}
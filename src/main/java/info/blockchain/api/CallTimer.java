@@ -0,0 +1,112 @@
+package info.blockchain.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+/**
+ * Collects the phases of one request for {@link CallTimings}. While a response handler runs,
+ * the timer is bound to the thread so that ResponseBodies.readJson(...) can report the time
+ * spent parsing; the rest of the handler's time, apart from reading the body, is mapping.
+ */
+class CallTimer {
+    private static final ThreadLocal<CallTimer> current = new ThreadLocal<CallTimer>();
+
+    private final String endpoint;
+    private final String requestMethod;
+    // When the request was started, after waiting for the rate limiter
+    long start = System.nanoTime();
+    int statusCode;
+    long connectNanos = -1;
+    long timeToFirstByteNanos = -1;
+    // Body read time measured by the transport before the handler runs
+    long bodyReadNanos;
+    private long handlerReadNanos;
+    private long handlerNanos;
+    private long parseNanos;
+
+    private CallTimer (String endpoint, String requestMethod) {
+        this.endpoint = endpoint;
+        this.requestMethod = requestMethod;
+    }
+
+    /**
+     * @return A timer if a timing listener is installed, otherwise null
+     */
+    static CallTimer start (String resource, String requestMethod) {
+        return HttpClient.getTimingListener() == null ? null : new CallTimer(RequestMetrics.endpointName(resource), requestMethod);
+    }
+
+    /**
+     * Runs the handler with this timer bound to the thread, counting the time spent in
+     * reads of the body as body read time.
+     */
+    <T> T handle (InputStream body, ResponseHandler<T> handler) throws IOException {
+        CallTimer previous = current.get();
+        current.set(this);
+        long handlerStart = System.nanoTime();
+        try {
+            return handler.handle(new TimedInputStream(body));
+        } finally {
+            handlerNanos = System.nanoTime() - handlerStart;
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Runs a parser, measuring it if a handler run by a timer is running on this thread.
+     * The time it spends waiting for body bytes is not counted as parse time.
+     */
+    static <T> T parse (Supplier<T> parser) {
+        CallTimer timer = current.get();
+        if (timer == null) {
+            return parser.get();
+        }
+        long readBefore = timer.handlerReadNanos;
+        long parseStart = System.nanoTime();
+        try {
+            return parser.get();
+        } finally {
+            timer.parseNanos += System.nanoTime() - parseStart - (timer.handlerReadNanos - readBefore);
+        }
+    }
+
+    /**
+     * Passes the timings to the installed listener.
+     */
+    void finish () {
+        CallTimingListener listener = HttpClient.getTimingListener();
+        if (listener != null) {
+            long mappingNanos = Math.max(0, handlerNanos - handlerReadNanos - parseNanos);
+            listener.onCall(new CallTimings(endpoint, requestMethod, statusCode, connectNanos, timeToFirstByteNanos,
+                    bodyReadNanos + handlerReadNanos, parseNanos, mappingNanos, System.nanoTime() - start));
+        }
+    }
+
+    private class TimedInputStream extends FilterInputStream {
+        TimedInputStream (InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read () throws IOException {
+            long readStart = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                handlerReadNanos += System.nanoTime() - readStart;
+            }
+        }
+
+        @Override
+        public int read (byte[] b, int off, int len) throws IOException {
+            long readStart = System.nanoTime();
+            try {
+                return super.read(b, off, len);
+            } finally {
+                handlerReadNanos += System.nanoTime() - readStart;
+            }
+        }
+    }
+}
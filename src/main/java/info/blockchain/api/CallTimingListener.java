@@ -0,0 +1,13 @@
+package info.blockchain.api;
+
+/**
+ * Receives the {@link CallTimings} of every request made by {@link HttpClient} and
+ * {@link NonBlockingHttpClient}. Install a listener with HttpClient.setTimingListener(...).
+ * It is called on the thread that completed the request, so it should return quickly.
+ */
+@FunctionalInterface
+public interface CallTimingListener {
+
+    void onCall (CallTimings timings);
+
+}
@@ -0,0 +1,102 @@
+package info.blockchain.api;
+
+/**
+ * Where the time of a single request went, from connecting to the server to building the
+ * returned entities. Durations are in nanoseconds, -1 when the transport cannot measure them.
+ * <p>
+ * Parse time is spent building a JSON tree from the body; mapping time is spent turning it
+ * into entities. Responses read with a streaming JsonReader, such as the blocks returned
+ * by getBlock, are parsed and mapped in one pass, which is reported as mapping time.
+ */
+public class CallTimings {
+    private final String endpoint;
+    private final String requestMethod;
+    private final int statusCode;
+    private final long connectNanos;
+    private final long timeToFirstByteNanos;
+    private final long bodyReadNanos;
+    private final long parseNanos;
+    private final long mappingNanos;
+    private final long totalNanos;
+
+    public CallTimings (String endpoint, String requestMethod, int statusCode, long connectNanos, long timeToFirstByteNanos,
+                        long bodyReadNanos, long parseNanos, long mappingNanos, long totalNanos) {
+        this.endpoint = endpoint;
+        this.requestMethod = requestMethod;
+        this.statusCode = statusCode;
+        this.connectNanos = connectNanos;
+        this.timeToFirstByteNanos = timeToFirstByteNanos;
+        this.bodyReadNanos = bodyReadNanos;
+        this.parseNanos = parseNanos;
+        this.mappingNanos = mappingNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * @return Endpoint name of the request, see RequestMetrics.endpointName(...)
+     */
+    public String getEndpoint () {
+        return endpoint;
+    }
+
+    public String getRequestMethod () {
+        return requestMethod;
+    }
+
+    /**
+     * @return HTTP status code of the response, 0 if none was received
+     */
+    public int getStatusCode () {
+        return statusCode;
+    }
+
+    /**
+     * @return Time to open the connection (DNS, TCP and TLS), close to 0 for a reused connection
+     */
+    public long getConnectNanos () {
+        return connectNanos;
+    }
+
+    /**
+     * @return Time from sending the request until the response headers arrived
+     */
+    public long getTimeToFirstByteNanos () {
+        return timeToFirstByteNanos;
+    }
+
+    /**
+     * @return Time spent receiving and decompressing the response body
+     */
+    public long getBodyReadNanos () {
+        return bodyReadNanos;
+    }
+
+    /**
+     * @return Time spent building a JSON tree from the body
+     */
+    public long getParseNanos () {
+        return parseNanos;
+    }
+
+    /**
+     * @return Time spent building entities
+     */
+    public long getMappingNanos () {
+        return mappingNanos;
+    }
+
+    /**
+     * @return Time from connecting until the entities were built
+     */
+    public long getTotalNanos () {
+        return totalNanos;
+    }
+
+    @Override
+    public String toString () {
+        return "CallTimings{endpoint=" + endpoint + ", requestMethod=" + requestMethod + ", statusCode=" + statusCode
+                + ", connectNanos=" + connectNanos + ", timeToFirstByteNanos=" + timeToFirstByteNanos
+                + ", bodyReadNanos=" + bodyReadNanos + ", parseNanos=" + parseNanos
+                + ", mappingNanos=" + mappingNanos + ", totalNanos=" + totalNanos + "}";
+    }
+}
@@ -0,0 +1,236 @@
+package info.blockchain.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending requests to an endpoint that keeps failing, so callers fail immediately
+ * instead of each waiting for a timeout. Every host and endpoint (the first segment of the
+ * resource path, e.g. `rawblock` or `charts`) has its own circuit:
+ * <ul>
+ * <li>CLOSED: requests are sent. After failureThreshold consecutive failures the circuit opens.</li>
+ * <li>OPEN: requests fail with {@link CircuitOpenException} without being sent. After
+ * openDurationMillis the circuit becomes half-open.</li>
+ * <li>HALF_OPEN: a single probe request is sent while other requests still fail fast. The
+ * circuit closes if the probe succeeds and opens again if it fails.</li>
+ * </ul>
+ * Connection failures, timeouts and 502, 503 and 504 responses count as failures, and so
+ * does a connection that fails while the response body is read. Other error responses and
+ * bodies the response handler rejects show the server is reachable and count as successes.
+ * <p>
+ * Install an instance with HttpClient.setCircuitBreaker(...) to apply it to all requests.
+ */
+public class CircuitBreaker {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_DURATION_MS = 30000;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Receives the state changes of all circuits of a breaker.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param circuit Host and endpoint of the circuit, e.g. `blockchain.info/rawblock`
+         * @param from    Previous state
+         * @param to      New state
+         */
+        void onStateChange (String circuit, State from, State to);
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final LongSupplier clock;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    public CircuitBreaker () {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION_MS);
+    }
+
+    /**
+     * @param failureThreshold   Number of consecutive failures that opens a circuit
+     * @param openDurationMillis Time an open circuit waits before it lets a probe request through
+     */
+    public CircuitBreaker (int failureThreshold, long openDurationMillis) {
+        this(failureThreshold, openDurationMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker (int failureThreshold, long openDurationMillis, LongSupplier clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.clock = clock;
+    }
+
+    public void addListener (Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener (Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param baseURL  Base URL of the request
+     * @param resource Resource path of the request
+     * @return The circuit guarding requests to the resource's endpoint
+     */
+    public Circuit circuit (String baseURL, String resource) {
+        return circuits.computeIfAbsent(key(baseURL, resource), Circuit::new);
+    }
+
+    /**
+     * @return The current state of every circuit used so far, by host and endpoint
+     */
+    public Map<String, State> getStates () {
+        Map<String, State> states = new TreeMap<String, State>();
+        for (Circuit circuit : circuits.values()) {
+            states.put(circuit.name, circuit.getState());
+        }
+        return states;
+    }
+
+    static String key (String baseURL, String resource) {
+        String host = URI.create(baseURL).getAuthority();
+        int slash = resource.indexOf('/');
+        return host + '/' + (slash == -1 ? resource : resource.substring(0, slash));
+    }
+
+    /**
+     * @return Whether the failure indicates the endpoint is down rather than the request being wrong
+     */
+    static boolean isOutage (Throwable failure) {
+        if (failure instanceof APIException) {
+            int status = ((APIException) failure).getStatusCode();
+            return status == 502 || status == 503 || status == 504;
+        }
+        if (failure instanceof HandlerException) {
+            return ((HandlerException) failure).isTransportFailure();
+        }
+        return failure instanceof IOException && !(failure instanceof CircuitOpenException);
+    }
+
+    private void fire (String circuit, State from, State to) {
+        for (Listener listener : listeners) {
+            listener.onStateChange(circuit, from, to);
+        }
+    }
+
+    /**
+     * The circuit of a single host and endpoint.
+     */
+    public class Circuit {
+        private final String name;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean probing;
+
+        Circuit (String name) {
+            this.name = name;
+        }
+
+        /**
+         * Must be called before a request is sent. If it returns normally, either
+         * onSuccess() or onFailure(...) must be called once the request is done.
+         *
+         * @throws CircuitOpenException If the request must not be sent
+         */
+        public void acquirePermission () throws CircuitOpenException {
+            State from;
+            synchronized (this) {
+                from = state;
+                if (state == State.CLOSED) {
+                    return;
+                }
+                if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationMillis) {
+                    state = State.HALF_OPEN;
+                    probing = false;
+                }
+                if (state == State.OPEN || probing) {
+                    throw new CircuitOpenException(name);
+                }
+                probing = true;
+            }
+            if (from != State.HALF_OPEN) {
+                fire(name, from, State.HALF_OPEN);
+            }
+        }
+
+        public void onSuccess () {
+            State from;
+            synchronized (this) {
+                consecutiveFailures = 0;
+                probing = false;
+                from = state;
+                state = State.CLOSED;
+            }
+            if (from != State.CLOSED) {
+                fire(name, from, State.CLOSED);
+            }
+        }
+
+        /**
+         * @param failure The exception the request failed with
+         */
+        public void onFailure (Throwable failure) {
+            // An interrupted caller says nothing about the endpoint
+            Throwable cause = HandlerException.unwrap(failure);
+            if (cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException)) {
+                onCancel();
+                return;
+            }
+            if (!isOutage(failure)) {
+                onSuccess();
+                return;
+            }
+            State from;
+            synchronized (this) {
+                from = state;
+                probing = false;
+                consecutiveFailures++;
+                if (state == State.CLOSED && consecutiveFailures < failureThreshold) {
+                    return;
+                }
+                state = State.OPEN;
+                openedAt = clock.getAsLong();
+            }
+            if (from != State.OPEN) {
+                fire(name, from, State.OPEN);
+            }
+        }
+
+        /**
+         * Reports a request that was cancelled before its outcome was known. A probe request
+         * being cancelled lets the next request probe instead.
+         */
+        public synchronized void onCancel () {
+            probing = false;
+        }
+
+        public synchronized State getState () {
+            return state;
+        }
+
+        /**
+         * @return Host and endpoint of this circuit
+         */
+        public String getName () {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package info.blockchain.api;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request while the {@link CircuitBreaker} circuit of its
+ * endpoint is open.
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 4172946212650739813L;
+
+    private final String circuit;
+
+    public CircuitOpenException (String circuit) {
+        super("Circuit " + circuit + " is open, the request was not sent");
+        this.circuit = circuit;
+    }
+
+    /**
+     * @return Host and endpoint of the open circuit
+     */
+    public String getCircuit () {
+        return circuit;
+    }
+}
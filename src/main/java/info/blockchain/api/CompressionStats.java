@@ -0,0 +1,83 @@
+package info.blockchain.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the response bytes received by {@link HttpClient} as they came over the wire
+ * (compressed) and after decoding (decompressed), to quantify the bandwidth saved by
+ * gzip and deflate compression.
+ */
+public class CompressionStats {
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong decompressedBytes = new AtomicLong();
+
+    void recordResponse (boolean compressed) {
+        responses.incrementAndGet();
+        if (compressed) {
+            compressedResponses.incrementAndGet();
+        }
+    }
+
+    void recordCompressedBytes (long bytes) {
+        compressedBytes.addAndGet(bytes);
+    }
+
+    void recordDecompressedBytes (long bytes) {
+        decompressedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * @return Number of response bodies read
+     */
+    public long getResponses () {
+        return responses.get();
+    }
+
+    /**
+     * @return Number of response bodies the server sent compressed
+     */
+    public long getCompressedResponses () {
+        return compressedResponses.get();
+    }
+
+    /**
+     * @return Number of body bytes received over the wire
+     */
+    public long getCompressedBytes () {
+        return compressedBytes.get();
+    }
+
+    /**
+     * @return Number of body bytes after decompression
+     */
+    public long getDecompressedBytes () {
+        return decompressedBytes.get();
+    }
+
+    /**
+     * @return Share of the decompressed bytes that did not have to be transferred,
+     * 0 if nothing was received yet
+     */
+    public double getSavingsRatio () {
+        long decompressed = decompressedBytes.get();
+        return decompressed == 0 ? 0 : 1 - (double) compressedBytes.get() / decompressed;
+    }
+
+    /**
+     * Resets all counters to 0.
+     */
+    public void reset () {
+        responses.set(0);
+        compressedResponses.set(0);
+        compressedBytes.set(0);
+        decompressedBytes.set(0);
+    }
+
+    @Override
+    public String toString () {
+        return "CompressionStats{responses=" + getResponses() + ", compressedResponses=" + getCompressedResponses()
+                + ", compressedBytes=" + getCompressedBytes() + ", decompressedBytes=" + getDecompressedBytes() + "}";
+    }
+}
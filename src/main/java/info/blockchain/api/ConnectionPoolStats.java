@@ -0,0 +1,62 @@
+package info.blockchain.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often requests made by {@link HttpClient} reused a kept-alive HTTPS connection
+ * (a hit) instead of opening a new one with a full TCP and TLS handshake (a miss).
+ */
+public class ConnectionPoolStats {
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    void recordRequest () {
+        requests.incrementAndGet();
+    }
+
+    void recordConnectionOpened () {
+        connectionsOpened.incrementAndGet();
+    }
+
+    /**
+     * @return Number of HTTPS requests made
+     */
+    public long getRequests () {
+        return requests.get();
+    }
+
+    /**
+     * @return Number of requests that reused a pooled connection
+     */
+    public long getHits () {
+        return Math.max(0, requests.get() - connectionsOpened.get());
+    }
+
+    /**
+     * @return Number of new connections opened
+     */
+    public long getMisses () {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * @return Ratio of hits to requests, 0 if no request was made yet
+     */
+    public double getHitRate () {
+        long total = requests.get();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    /**
+     * Resets all counters to 0.
+     */
+    public void reset () {
+        requests.set(0);
+        connectionsOpened.set(0);
+    }
+
+    @Override
+    public String toString () {
+        return "ConnectionPoolStats{requests=" + getRequests() + ", hits=" + getHits() + ", misses=" + getMisses() + "}";
+    }
+}
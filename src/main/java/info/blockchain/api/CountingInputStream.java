@@ -0,0 +1,50 @@
+package info.blockchain.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Passes the number of bytes read through it to a counter.
+ */
+class CountingInputStream extends FilterInputStream {
+    private final LongConsumer counter;
+
+    CountingInputStream (InputStream in, LongConsumer counter) {
+        super(in);
+        this.counter = counter;
+    }
+
+    @Override
+    public int read () throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            counter.accept(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read (byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            counter.accept(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip (long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            counter.accept(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported () {
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package info.blockchain.api;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Delegates to the default SSLSocketFactory and records every socket it creates, i.e.
+ * every connection that could not be taken from the JDK keep-alive cache.
+ * <p>
+ * A single instance must be shared by all connections: the keep-alive cache only hands out
+ * connections that were created by the same factory.
+ */
+class CountingSSLSocketFactory extends SSLSocketFactory {
+    private final SSLSocketFactory delegate;
+    private final ConnectionPoolStats stats;
+
+    CountingSSLSocketFactory (SSLSocketFactory delegate, ConnectionPoolStats stats) {
+        this.delegate = delegate;
+        this.stats = stats;
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites () {
+        return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites () {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket () throws IOException {
+        stats.recordConnectionOpened();
+        return delegate.createSocket();
+    }
+
+    @Override
+    public Socket createSocket (Socket socket, String host, int port, boolean autoClose) throws IOException {
+        stats.recordConnectionOpened();
+        return delegate.createSocket(socket, host, port, autoClose);
+    }
+
+    @Override
+    public Socket createSocket (String host, int port) throws IOException {
+        stats.recordConnectionOpened();
+        return delegate.createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket (String host, int port, InetAddress localHost, int localPort) throws IOException {
+        stats.recordConnectionOpened();
+        return delegate.createSocket(host, port, localHost, localPort);
+    }
+
+    @Override
+    public Socket createSocket (InetAddress host, int port) throws IOException {
+        stats.recordConnectionOpened();
+        return delegate.createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket (InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        stats.recordConnectionOpened();
+        return delegate.createSocket(address, port, localAddress, localPort);
+    }
+}
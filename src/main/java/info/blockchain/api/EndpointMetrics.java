@@ -0,0 +1,108 @@
+package info.blockchain.api;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request counters and latency histograms of a single endpoint, kept by {@link MetricsRegistry}.
+ */
+public class EndpointMetrics {
+    private final String endpoint;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final Map<Integer, AtomicLong> statusCodes = new ConcurrentHashMap<Integer, AtomicLong>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+
+    EndpointMetrics (String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void recordRequest (int statusCode, long latencyNanos, long sent, long received) {
+        requests.incrementAndGet();
+        statusCodes.computeIfAbsent(statusCode, code -> new AtomicLong()).incrementAndGet();
+        latency.record(latencyNanos);
+        bytesSent.addAndGet(Math.max(0, sent));
+        bytesReceived.addAndGet(Math.max(0, received));
+    }
+
+    void recordParse (long parseNanos) {
+        parseTime.record(parseNanos);
+    }
+
+    void recordRetry () {
+        retries.incrementAndGet();
+    }
+
+    /**
+     * @return Endpoint name, e.g. `rawtx`
+     */
+    public String getEndpoint () {
+        return endpoint;
+    }
+
+    /**
+     * @return Number of requests sent, counting every attempt
+     */
+    public long getRequests () {
+        return requests.get();
+    }
+
+    /**
+     * @return Number of requests that were repeated after failing
+     */
+    public long getRetries () {
+        return retries.get();
+    }
+
+    /**
+     * @return Number of request body bytes sent
+     */
+    public long getBytesSent () {
+        return bytesSent.get();
+    }
+
+    /**
+     * @return Number of response body bytes received, before decompression
+     */
+    public long getBytesReceived () {
+        return bytesReceived.get();
+    }
+
+    /**
+     * @return Number of responses by HTTP status code; code 0 counts requests that received
+     * no response
+     */
+    public Map<Integer, Long> getStatusCodes () {
+        Map<Integer, Long> counts = new TreeMap<Integer, Long>();
+        for (Map.Entry<Integer, AtomicLong> entry : statusCodes.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    /**
+     * @return Time from sending each request until its response was handled
+     */
+    public LatencyHistogram getLatency () {
+        return latency;
+    }
+
+    /**
+     * @return Time spent parsing each successful response
+     */
+    public LatencyHistogram getParseTime () {
+        return parseTime;
+    }
+
+    @Override
+    public String toString () {
+        return "EndpointMetrics{endpoint=" + endpoint + ", requests=" + getRequests() + ", retries=" + getRetries()
+                + ", bytesSent=" + getBytesSent() + ", bytesReceived=" + getBytesReceived()
+                + ", statusCodes=" + getStatusCodes() + ", latency=" + latency + ", parseTime=" + parseTime + "}";
+    }
+}
@@ -0,0 +1,102 @@
+package info.blockchain.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Wraps an exception thrown while a {@link ResponseHandler} consumed a response body. Once the
+ * body has reached the handler the request is not repeated, since the handler may already
+ * have acted on part of it and a malformed body would only fail again. The transports pass
+ * the original exception on to the caller.
+ */
+final class HandlerException extends IOException {
+    private static final long serialVersionUID = -2318650157249611304L;
+
+    private final boolean transportFailure;
+
+    private HandlerException (Exception cause, boolean transportFailure) {
+        super(cause);
+        this.transportFailure = transportFailure;
+    }
+
+    /**
+     * Runs the handler on the body and closes it, wrapping the IOException or RuntimeException
+     * thrown by either.
+     */
+    static <T> T handle (InputStream body, ResponseHandler<T> handler) throws HandlerException {
+        WatchedInputStream watched = new WatchedInputStream(body);
+        try (InputStream in = watched) {
+            return handler.handle(in);
+        } catch (IOException | RuntimeException e) {
+            throw new HandlerException(e, watched.failed);
+        }
+    }
+
+    /**
+     * @return Whether reading the body from the network failed, as opposed to the handler
+     * rejecting what it read
+     */
+    boolean isTransportFailure () {
+        return transportFailure;
+    }
+
+    /**
+     * @return The IOException thrown by the handler
+     * @throws RuntimeException The RuntimeException thrown by the handler
+     */
+    IOException unwrap () {
+        if (getCause() instanceof RuntimeException) {
+            throw (RuntimeException) getCause();
+        }
+        return (IOException) getCause();
+    }
+
+    /**
+     * @return The exception thrown by the handler if the failure is a HandlerException, otherwise the failure
+     */
+    static Throwable unwrap (Throwable failure) {
+        return failure instanceof HandlerException ? failure.getCause() : failure;
+    }
+
+    /**
+     * Remembers whether a read of the underlying stream failed.
+     */
+    private static class WatchedInputStream extends FilterInputStream {
+        boolean failed;
+
+        WatchedInputStream (InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read () throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read (byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public long skip (long n) throws IOException {
+            try {
+                return super.skip(n);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package info.blockchain.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a slow GET request is duplicated ("hedged") by {@link NonBlockingHttpClient}.
+ * If a request has not completed after the given percentile of the recent latencies of its
+ * endpoint, a second identical request is sent and whichever succeeds first is used. The
+ * other one is cancelled.
+ * <p>
+ * The delay is kept between minDelayMillis and maxDelayMillis, and is maxDelayMillis until
+ * an endpoint has enough samples. Only idempotent read-only endpoints of the BlockExplorer,
+ * ExchangeRates and Statistics APIs are hedged (see DEFAULT_ENDPOINTS). The wallet and
+ * receive endpoints are not in that set, and a GET of v2/receive generates a new address
+ * each time it is sent.
+ */
+public class HedgePolicy {
+    public static final Set<String> DEFAULT_ENDPOINTS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "rawtx", "block-height", "latestblock", "unconfirmed-transactions", "blocks",
+            "rawaddr", "multiaddr", "balance", "unspent",
+            "ticker", "tobtc", "frombtc",
+            "stats", "charts", "pools")));
+
+    // Number of recent latencies per endpoint the percentile is computed from
+    private static final int WINDOW = 1024;
+    private static final int MIN_SAMPLES = 20;
+    // The percentile is recomputed after this many new samples
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final Set<String> endpoints;
+    private final Map<String, Latencies> latencies = new ConcurrentHashMap<String, Latencies>();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * @param percentile     Percentile of the endpoint's latencies after which a request is hedged, e.g. 95
+     * @param minDelayMillis Shortest time to wait before hedging
+     * @param maxDelayMillis Longest time to wait before hedging
+     */
+    public HedgePolicy (double percentile, long minDelayMillis, long maxDelayMillis) {
+        this(percentile, minDelayMillis, maxDelayMillis, DEFAULT_ENDPOINTS);
+    }
+
+    /**
+     * @param percentile     Percentile of the endpoint's latencies after which a request is hedged, e.g. 95
+     * @param minDelayMillis Shortest time to wait before hedging
+     * @param maxDelayMillis Longest time to wait before hedging
+     * @param endpoints      First path segments of the resources that may be hedged; they must be idempotent
+     *                       and their responses must not be streamed, e.g. rawblock by BlockExplorer.streamBlock(...)
+     */
+    public HedgePolicy (double percentile, long minDelayMillis, long maxDelayMillis, Set<String> endpoints) {
+        if (!(percentile > 0 && percentile <= 100) || minDelayMillis < 0 || maxDelayMillis < minDelayMillis) {
+            throw new IllegalArgumentException("percentile must be in (0, 100] and 0 <= minDelayMillis <= maxDelayMillis");
+        }
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.endpoints = new HashSet<String>(endpoints);
+    }
+
+    /**
+     * @param requestMethod HTTP method of the request
+     * @param resource      Resource path of the request
+     * @return Milliseconds to wait before sending a hedged request, -1 if the request must not be hedged
+     */
+    public long hedgeDelay (String requestMethod, String resource) {
+        String endpoint = endpoint(resource);
+        if (!"GET".equals(requestMethod) || !endpoints.contains(endpoint)) {
+            return -1;
+        }
+        Latencies samples = latencies.get(endpoint);
+        long delay = samples == null ? -1 : samples.percentile();
+        return delay < 0 ? maxDelayMillis : Math.max(minDelayMillis, Math.min(maxDelayMillis, delay));
+    }
+
+    /**
+     * Records the latency of a request that completed successfully.
+     */
+    public void recordLatency (String resource, long latencyMillis) {
+        String endpoint = endpoint(resource);
+        if (endpoints.contains(endpoint)) {
+            latencies.computeIfAbsent(endpoint, e -> new Latencies()).add(latencyMillis);
+        }
+    }
+
+    void recordHedge () {
+        hedgedRequests.incrementAndGet();
+    }
+
+    void recordHedgeWin () {
+        hedgeWins.incrementAndGet();
+    }
+
+    /**
+     * @return Number of hedged requests sent
+     */
+    public long getHedgedRequests () {
+        return hedgedRequests.get();
+    }
+
+    /**
+     * @return Number of hedged requests that completed before the request they duplicated
+     */
+    public long getHedgeWins () {
+        return hedgeWins.get();
+    }
+
+    private static String endpoint (String resource) {
+        int slash = resource.indexOf('/');
+        return slash == -1 ? resource : resource.substring(0, slash);
+    }
+
+    private class Latencies {
+        private final long[] samples = new long[WINDOW];
+        private int count;
+        private long cached = -1;
+
+        synchronized void add (long latencyMillis) {
+            samples[count % WINDOW] = latencyMillis;
+            count++;
+            if (count >= MIN_SAMPLES && (cached < 0 || count % RECOMPUTE_INTERVAL == 0)) {
+                long[] sorted = Arrays.copyOf(samples, Math.min(count, WINDOW));
+                Arrays.sort(sorted);
+                int rank = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+                cached = sorted[Math.max(0, rank)];
+            }
+        }
+
+        synchronized long percentile () {
+            return cached;
+        }
+    }
+}
@@ -1,21 +1,59 @@
 package info.blockchain.api;
 
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * This is a utility class for performing API calls using GET and POST requests. It is
  * possible to override these calls by implementing HttpClientInterface. Add the new
  * implementation via setCustomHttpClient(...), such that it will get used globally.
+ * <p>
+ * Connections are kept alive and reused through the JDK keep-alive cache, which holds up to
+ * a configurable number of idle connections per host (see configureConnectionPool(...)).
+ * Reuse of HTTPS connections can be verified via getConnectionPoolStats().
+ * <p>
+ * Unless COMPRESSION_ENABLED is set to false, gzip and deflate encoded responses are
+ * requested and decoded transparently. getCompressionStats() reports the bytes received
+ * before and after decoding.
+ * <p>
+ * If a {@link RateLimiter} is installed via setRateLimiter(...), every request waits for a
+ * token for its api_code parameter before it is sent.
+ * <p>
+ * Failed GET requests are repeated according to the {@link RetryPolicy} set with
+ * setRetryPolicy(...), RetryPolicy.DEFAULT unless changed.
+ * <p>
+ * If a {@link CircuitBreaker} is installed via setCircuitBreaker(...), requests to an
+ * endpoint whose circuit is open fail with a {@link CircuitOpenException} without being sent.
+ * <p>
+ * Latency, size, status and parse time of every request are reported to the
+ * {@link RequestMetrics} installed via setMetrics(...), and the breakdown of each request
+ * into its phases to the {@link CallTimingListener} installed via setTimingListener(...).
  */
 public class HttpClient implements HttpClientInterface {
-    private static final String BASE_URL = "https://blockchain.info/";
+    static final String BASE_URL = "https://blockchain.info/";
 
     public volatile static int TIMEOUT_MS = 10000;
+    public volatile static int READ_TIMEOUT_MS = 30000;
+    public volatile static boolean COMPRESSION_ENABLED = true;
+
+    private static final ConnectionPoolStats connectionPoolStats = new ConnectionPoolStats();
+    private static final CompressionStats compressionStats = new CompressionStats();
+    private static SSLSocketFactory sslSocketFactory;
+    private volatile static RateLimiter rateLimiter;
+    private volatile static RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private volatile static CircuitBreaker circuitBreaker;
+    private volatile static RequestMetrics metrics = RequestMetrics.NONE;
+    private volatile static CallTimingListener timingListener;
 
     private static HttpClientInterface instance;
 
@@ -35,6 +73,237 @@ public class HttpClient implements HttpClientInterface {
         instance = httpClient;
     }
 
+    /**
+     * Configures the JDK keep-alive cache used by this client. The JDK reads these settings
+     * only once, so this method must be called before the first request is made.
+     *
+     * @param maxConnectionsPerRoute Maximum number of idle connections kept per host
+     * @param idleTimeoutSeconds     Time after which an idle connection is closed, unless the
+     *                               server asks for a shorter one (honoured by JDK 20 and later)
+     */
+    public static void configureConnectionPool (int maxConnectionsPerRoute, int idleTimeoutSeconds) {
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(maxConnectionsPerRoute));
+        System.setProperty("http.keepAlive.time.server", String.valueOf(idleTimeoutSeconds));
+        System.setProperty("http.keepAlive.time.proxy", String.valueOf(idleTimeoutSeconds));
+    }
+
+    /**
+     * @return Connection reuse counters of all HTTPS requests made by this class
+     */
+    public static ConnectionPoolStats getConnectionPoolStats () {
+        return connectionPoolStats;
+    }
+
+    /**
+     * Installs a rate limiter applied to the requests of this class, {@link NonBlockingHttpClient}
+     * and {@link OkClient}.
+     *
+     * @param limiter The rate limiter, or null to send requests without limiting them
+     */
+    public static void setRateLimiter (RateLimiter limiter) {
+        rateLimiter = limiter;
+    }
+
+    /**
+     * @return The installed rate limiter, null if there is none
+     */
+    public static RateLimiter getRateLimiter () {
+        return rateLimiter;
+    }
+
+    /**
+     * Sets the policy for repeating failed requests of this class, {@link NonBlockingHttpClient}
+     * and {@link OkClient}.
+     *
+     * @param policy The retry policy, RetryPolicy.NONE to never repeat a request
+     */
+    public static void setRetryPolicy (RetryPolicy policy) {
+        retryPolicy = policy == null ? RetryPolicy.NONE : policy;
+    }
+
+    /**
+     * @return The policy for repeating failed requests
+     */
+    public static RetryPolicy getRetryPolicy () {
+        return retryPolicy;
+    }
+
+    /**
+     * Installs a circuit breaker applied to the requests of this class, {@link NonBlockingHttpClient}
+     * and {@link OkClient}.
+     *
+     * @param breaker The circuit breaker, or null to always send requests
+     */
+    public static void setCircuitBreaker (CircuitBreaker breaker) {
+        circuitBreaker = breaker;
+    }
+
+    /**
+     * @return The installed circuit breaker, null if there is none
+     */
+    public static CircuitBreaker getCircuitBreaker () {
+        return circuitBreaker;
+    }
+
+    /**
+     * Installs the receiver of the measurements of requests made by this class,
+     * {@link NonBlockingHttpClient} and {@link OkClient}.
+     *
+     * @param requestMetrics The metrics receiver, e.g. a {@link MetricsRegistry}, or null to not measure requests
+     */
+    public static void setMetrics (RequestMetrics requestMetrics) {
+        metrics = requestMetrics == null ? RequestMetrics.NONE : requestMetrics;
+    }
+
+    /**
+     * @return The receiver of request measurements, RequestMetrics.NONE if there is none
+     */
+    public static RequestMetrics getMetrics () {
+        return metrics;
+    }
+
+    /**
+     * Installs the receiver of the timing breakdown of requests made by this class and
+     * {@link NonBlockingHttpClient}.
+     *
+     * @param listener The timing listener, or null to not time the phases of requests
+     */
+    public static void setTimingListener (CallTimingListener listener) {
+        timingListener = listener;
+    }
+
+    /**
+     * @return The installed timing listener, null if there is none
+     */
+    public static CallTimingListener getTimingListener () {
+        return timingListener;
+    }
+
+    /**
+     * Asks the installed circuit breaker, if any, whether a request to the resource may be sent.
+     *
+     * @return The circuit to report the outcome of the request to, null if there is no breaker
+     * @throws CircuitOpenException If the circuit of the resource is open
+     */
+    static CircuitBreaker.Circuit acquireCircuit (String baseURL, String resource) throws CircuitOpenException {
+        CircuitBreaker breaker = circuitBreaker;
+        if (breaker == null) {
+            return null;
+        }
+        CircuitBreaker.Circuit circuit = breaker.circuit(baseURL, resource);
+        circuit.acquirePermission();
+        return circuit;
+    }
+
+    /**
+     * Waits for the installed rate limiter, if any, to allow a request with the given parameters.
+     */
+    static void acquirePermit (Map<String, String> params) throws InterruptedIOException {
+        RateLimiter limiter = rateLimiter;
+        if (limiter != null) {
+            limiter.acquire(apiCode(params));
+        }
+    }
+
+    /**
+     * @return A future completed once the installed rate limiter, if any, allows a request
+     * with the given parameters
+     */
+    static CompletableFuture<Void> acquirePermitAsync (Map<String, String> params) {
+        RateLimiter limiter = rateLimiter;
+        return limiter == null ? CompletableFuture.<Void>completedFuture(null) : limiter.acquireAsync(apiCode(params));
+    }
+
+    private static String apiCode (Map<String, String> params) {
+        return params == null ? null : params.get("api_code");
+    }
+
+    /**
+     * @return Compressed and decompressed byte counters of all responses read by this class
+     */
+    public static CompressionStats getCompressionStats () {
+        return compressionStats;
+    }
+
+    /**
+     * Perform a GET request on a Blockchain.info API resource without blocking the caller.
+     * If the installed client implements {@link AsyncHttpClientInterface} no thread is held
+     * while waiting on the network, otherwise the blocking call runs on the given executor.
+     *
+     * @param executor Executor for clients that only support blocking calls
+     * @param resource Resource path after https://blockchain.info/api/
+     * @param params   Map containing request parameters
+     * @return A future that contains the String response
+     */
+    public static CompletableFuture<String> getAsync (AsyncExecutor executor, String resource, Map<String, String> params) {
+        HttpClientInterface client = getInstance();
+        if (client instanceof AsyncHttpClientInterface) {
+            return ((AsyncHttpClientInterface) client).getAsync(resource, params);
+        }
+        return executor.supply(() -> client.get(resource, params));
+    }
+
+    public static CompletableFuture<String> getAsync (AsyncExecutor executor, String baseURL, String resource, Map<String, String> params) {
+        HttpClientInterface client = getInstance();
+        if (client instanceof AsyncHttpClientInterface) {
+            return ((AsyncHttpClientInterface) client).getAsync(baseURL, resource, params);
+        }
+        return executor.supply(() -> client.get(baseURL, resource, params));
+    }
+
+    /**
+     * Perform a GET request on a Blockchain.info API resource without blocking the caller and
+     * parse the response body with the given handler. See getAsync(...) for how the request
+     * is executed.
+     *
+     * @param executor Executor for clients that only support blocking calls
+     * @param resource Resource path after https://blockchain.info/api/
+     * @param params   Map containing request parameters
+     * @param handler  Parser reading the response body stream
+     * @return A future that contains the parsed response
+     */
+    public static <T> CompletableFuture<T> getAsync (AsyncExecutor executor, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        HttpClientInterface client = getInstance();
+        if (client instanceof AsyncHttpClientInterface) {
+            return ((AsyncHttpClientInterface) client).getAsync(resource, params, handler);
+        }
+        return executor.supply(() -> client.get(resource, params, handler));
+    }
+
+    public static <T> CompletableFuture<T> getAsync (AsyncExecutor executor, String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        HttpClientInterface client = getInstance();
+        if (client instanceof AsyncHttpClientInterface) {
+            return ((AsyncHttpClientInterface) client).getAsync(baseURL, resource, params, handler);
+        }
+        return executor.supply(() -> client.get(baseURL, resource, params, handler));
+    }
+
+    /**
+     * Perform a POST request on a Blockchain.info API resource without blocking the caller.
+     * See getAsync(...) for how the request is executed.
+     *
+     * @param executor Executor for clients that only support blocking calls
+     * @param resource Resource path after https://blockchain.info/api/
+     * @param params   Map containing request parameters
+     * @return A future that contains the String response
+     */
+    public static CompletableFuture<String> postAsync (AsyncExecutor executor, String resource, Map<String, String> params) {
+        HttpClientInterface client = getInstance();
+        if (client instanceof AsyncHttpClientInterface) {
+            return ((AsyncHttpClientInterface) client).postAsync(resource, params);
+        }
+        return executor.supply(() -> client.post(resource, params));
+    }
+
+    public static CompletableFuture<String> postAsync (AsyncExecutor executor, String baseURL, String resource, Map<String, String> params) {
+        HttpClientInterface client = getInstance();
+        if (client instanceof AsyncHttpClientInterface) {
+            return ((AsyncHttpClientInterface) client).postAsync(baseURL, resource, params);
+        }
+        return executor.supply(() -> client.post(baseURL, resource, params));
+    }
+
     /**
      * Perform a GET request on a Blockchain.info API resource.
      *
@@ -44,11 +313,32 @@ public class HttpClient implements HttpClientInterface {
      * @throws APIException If the server returns an error
      */
     public String get (String resource, Map<String, String> params) throws APIException, IOException {
-        return openURL(BASE_URL, resource, params, "GET");
+        return openURL(BASE_URL, resource, params, "GET", ResponseBodies::readString);
     }
 
     public String get (String baseURL, String resource, Map<String, String> params) throws APIException, IOException {
-        return openURL(baseURL, resource, params, "GET");
+        return openURL(baseURL, resource, params, "GET", ResponseBodies::readString);
+    }
+
+    /**
+     * Perform a GET request on a Blockchain.info API resource and parse the response
+     * while it is being received.
+     *
+     * @param resource Resource path after https://blockchain.info/api/
+     * @param params   Map containing request parameters
+     * @param handler  Parser reading the response body stream
+     * @return The parsed response
+     * @throws APIException If the server returns an error
+     * @throws IOException  If the server is not reachable or the response cannot be parsed
+     */
+    @Override
+    public <T> T get (String resource, Map<String, String> params, ResponseHandler<T> handler) throws APIException, IOException {
+        return openURL(BASE_URL, resource, params, "GET", handler);
+    }
+
+    @Override
+    public <T> T get (String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) throws APIException, IOException {
+        return openURL(baseURL, resource, params, "GET", handler);
     }
 
     /**
@@ -61,76 +351,190 @@ public class HttpClient implements HttpClientInterface {
      * @throws IOException  If the server is not reachable
      */
     public String post (String resource, Map<String, String> params) throws APIException, IOException {
-        return openURL(BASE_URL, resource, params, "POST");
+        return openURL(BASE_URL, resource, params, "POST", ResponseBodies::readString);
     }
 
     public String post (String baseURL, String resource, Map<String, String> params) throws APIException, IOException {
-        return openURL(baseURL, resource, params, "POST");
+        return openURL(baseURL, resource, params, "POST", ResponseBodies::readString);
+    }
+
+    private static <T> T openURL (String baseURL, String resource, Map<String, String> params, String requestMethod, ResponseHandler<T> handler) throws APIException, IOException {
+        RetryPolicy policy = retryPolicy;
+        long start = System.currentTimeMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return openURLGuarded(baseURL, resource, params, requestMethod, handler);
+            } catch (HandlerException e) {
+                throw e.unwrap();
+            } catch (APIException | IOException e) {
+                long delay = policy.delayAfterFailure(requestMethod, resource, attempt, System.currentTimeMillis() - start, e);
+                if (delay < 0) {
+                    throw e;
+                }
+                metrics.recordRetry(RequestMetrics.endpointName(resource));
+                sleep(delay);
+            }
+        }
     }
 
-    private static String openURL (String baseURL, String resource, Map<String, String> params, String requestMethod) throws APIException, IOException {
+    private static <T> T openURLGuarded (String baseURL, String resource, Map<String, String> params, String requestMethod, ResponseHandler<T> handler) throws APIException, IOException {
+        CircuitBreaker.Circuit circuit = acquireCircuit(baseURL, resource);
+        if (circuit == null) {
+            return openURLOnce(baseURL, resource, params, requestMethod, handler);
+        }
+        try {
+            T result = openURLOnce(baseURL, resource, params, requestMethod, handler);
+            circuit.onSuccess();
+            return result;
+        } catch (APIException | IOException | RuntimeException e) {
+            circuit.onFailure(e);
+            throw e;
+        }
+    }
+
+    private static <T> T openURLOnce (String baseURL, String resource, Map<String, String> params, String requestMethod, ResponseHandler<T> handler) throws APIException, IOException {
         String encodedParams = urlEncodeParams(params);
         URL url = null;
-        APIException apiException = null;
-        IOException ioException = null;
-
-        String responseStr = null;
 
         if (requestMethod.equals("GET")) {
             if (encodedParams.isEmpty()) {
                 url = new URL(baseURL + resource);
             } else {
                 url = new URL(baseURL + resource + '?' + encodedParams);
-            }            
+            }
         } else if (requestMethod.equals("POST")) {
             url = new URL(baseURL + resource);
         }
 
-        HttpURLConnection conn = null;
+        acquirePermit(params);
+        RequestMetrics requestMetrics = metrics;
+        String endpoint = RequestMetrics.endpointName(resource);
+        long start = System.nanoTime();
+        int status = 0;
+        long bytesSent = 0;
+        long[] bytesReceived = new long[1];
+        CallTimer timer = CallTimer.start(resource, requestMethod);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        if (conn instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) conn).setSSLSocketFactory(getSSLSocketFactory());
+            connectionPoolStats.recordRequest();
+        }
+        conn.setRequestMethod(requestMethod);
+        conn.setConnectTimeout(TIMEOUT_MS);
+        conn.setReadTimeout(READ_TIMEOUT_MS);
+        if (COMPRESSION_ENABLED) {
+            conn.setRequestProperty("Accept-Encoding", "gzip, deflate");
+        }
 
+        // Streams are read to the end and closed, but the connection is never disconnected,
+        // which lets the JDK return it to the keep-alive cache for the next request.
         try {
-            conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod(requestMethod);
-            conn.setConnectTimeout(TIMEOUT_MS);
-
+            byte[] postBytes = null;
             if (requestMethod.equals("POST")) {
-                byte[] postBytes = encodedParams.getBytes("UTF-8");
+                // The connection must be configured before connect() is called for the timings
+                postBytes = encodedParams.getBytes("UTF-8");
                 conn.setDoOutput(true);
                 conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
                 conn.setRequestProperty("Content-Length", String.valueOf(postBytes.length));
-                conn.getOutputStream().write(postBytes);
-                conn.getOutputStream().close();
+            }
+            long requestStart = System.nanoTime();
+            if (timer != null) {
+                conn.connect();
+                requestStart = System.nanoTime();
+                timer.connectNanos = requestStart - start;
+            }
+            if (postBytes != null) {
+                try (OutputStream os = conn.getOutputStream()) {
+                    os.write(postBytes);
+                }
+                bytesSent = postBytes.length;
             }
 
-            if (conn.getResponseCode() != 200) {
-                apiException = new APIException(inputStreamToString(conn.getErrorStream()));
-            } else {
-                responseStr = inputStreamToString(conn.getInputStream());
+            status = conn.getResponseCode();
+            if (timer != null) {
+                timer.timeToFirstByteNanos = System.nanoTime() - requestStart;
+                timer.statusCode = status;
+            }
+            if (status != 200) {
+                InputStream errorStream = conn.getErrorStream();
+                String message = errorStream == null ? conn.getResponseMessage()
+                        : readErrorMessage(decode(conn, errorStream, n -> bytesReceived[0] += n));
+                long retryAfter = RetryPolicy.parseRetryAfter(conn.getHeaderField("Retry-After"), System.currentTimeMillis());
+                throw new APIException(message, status, retryAfter);
+            }
+            try (InputStream body = decode(conn, conn.getInputStream(), n -> bytesReceived[0] += n)) {
+                long parseStart = System.nanoTime();
+                T result = HandlerException.handle(body, timer == null ? handler : in -> timer.handle(in, handler));
+                requestMetrics.recordParse(endpoint, System.nanoTime() - parseStart);
+                return result;
             }
         } catch (IOException e) {
-            ioException = e;
+            drainQuietly(conn.getErrorStream());
+            throw e;
         } finally {
-            try {
-                if (apiException != null) {
-                    conn.getErrorStream().close();
-                }
-                conn.getInputStream().close();
-            } catch (Exception ex) {
+            requestMetrics.recordRequest(endpoint, requestMethod, status, System.nanoTime() - start, bytesSent, bytesReceived[0]);
+            if (timer != null) {
+                timer.finish();
             }
+        }
+    }
 
-            if (ioException != null) {
-                throw ioException;
-            }
+    /**
+     * Wraps a response stream so that it is decoded according to its Content-Encoding
+     * and its size is counted before and after decoding.
+     *
+     * @param wireCounter Receives the number of bytes read before decoding
+     */
+    private static InputStream decode (HttpURLConnection conn, InputStream stream, LongConsumer wireCounter) throws IOException {
+        String encoding = conn.getContentEncoding();
+        boolean gzip = "gzip".equalsIgnoreCase(encoding);
+        boolean deflate = "deflate".equalsIgnoreCase(encoding);
+        compressionStats.recordResponse(gzip || deflate);
 
-            if (apiException != null) {
-                throw apiException;
-            }
+        InputStream wire = new CountingInputStream(stream, n -> {
+            compressionStats.recordCompressedBytes(n);
+            wireCounter.accept(n);
+        });
+        InputStream decoded = wire;
+        if (gzip) {
+            decoded = new GZIPInputStream(wire);
+        } else if (deflate) {
+            decoded = new InflaterInputStream(wire);
+        }
+        return new CountingInputStream(decoded, compressionStats::recordDecompressedBytes);
+    }
+
+    static void sleep (long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry the request");
+        }
+    }
+
+    private synchronized static SSLSocketFactory getSSLSocketFactory () {
+        if (sslSocketFactory == null) {
+            sslSocketFactory = new CountingSSLSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory(), connectionPoolStats);
         }
+        return sslSocketFactory;
+    }
 
-        return responseStr;
+    private static void drainQuietly (InputStream is) {
+        if (is == null) {
+            return;
+        }
+        try (InputStream in = is) {
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) != -1) {
+                // discard
+            }
+        } catch (IOException e) {
+        }
     }
 
-    private static String urlEncodeParams (Map<String, String> params) {
+    static String urlEncodeParams (Map<String, String> params) {
         String result = "";
 
         if (params != null && params.size() > 0) {
@@ -153,18 +557,9 @@ public class HttpClient implements HttpClientInterface {
         return result;
     }
 
-    private static String inputStreamToString (InputStream is) throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-
-        StringBuilder responseStringBuilder = new StringBuilder();
-        String line = "";
-
-        while ((line = reader.readLine()) != null) {
-            responseStringBuilder.append(line);
+    static String readErrorMessage (InputStream errorStream) throws IOException {
+        try (InputStream is = errorStream) {
+            return ResponseBodies.readString(is).trim();
         }
-
-        reader.close();
-
-        return responseStringBuilder.toString();
     }
 }
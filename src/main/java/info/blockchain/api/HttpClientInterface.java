@@ -1,6 +1,9 @@
 package info.blockchain.api;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -18,4 +21,21 @@ public interface HttpClientInterface {
 
     String post (String baseURL, String resource, Map<String, String> params) throws APIException, IOException;
 
+    /**
+     * Perform a GET request and pass the response body to the given handler. Implementations
+     * that can expose the body as a stream should override this method; by default the
+     * body is read as a String first.
+     */
+    default <T> T get (String resource, Map<String, String> params, ResponseHandler<T> handler) throws APIException, IOException {
+        try (InputStream body = new ByteArrayInputStream(get(resource, params).getBytes(StandardCharsets.UTF_8))) {
+            return handler.handle(body);
+        }
+    }
+
+    default <T> T get (String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) throws APIException, IOException {
+        try (InputStream body = new ByteArrayInputStream(get(baseURL, resource, params).getBytes(StandardCharsets.UTF_8))) {
+            return handler.handle(body);
+        }
+    }
+
 }
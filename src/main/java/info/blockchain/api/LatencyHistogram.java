@@ -0,0 +1,118 @@
+package info.blockchain.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds with log-linear buckets, in the style of
+ * HdrHistogram. Each power of two is split into 32 sub-buckets, so recorded values are
+ * reported with a relative error below 3.2% over the whole range while using a fixed
+ * amount of memory.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos Duration to record, negative values are recorded as 0
+     */
+    public void record (long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return Number of recorded values
+     */
+    public long getCount () {
+        return count.get();
+    }
+
+    /**
+     * @return Largest recorded value in nanoseconds, 0 if nothing was recorded
+     */
+    public long getMax () {
+        return max.get();
+    }
+
+    /**
+     * @return Mean of the recorded values in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMean () {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100, e.g. 99.9
+     * @return The value in nanoseconds that the given percentage of recorded values do not
+     * exceed, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile (double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Resets the histogram. Values recorded concurrently may be lost.
+     */
+    public void reset () {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int index (long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestEquivalentValue (int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString () {
+        return "LatencyHistogram{count=" + getCount()
+                + ", meanMs=" + millis((long) getMean())
+                + ", p50Ms=" + millis(getValueAtPercentile(50))
+                + ", p99Ms=" + millis(getValueAtPercentile(99))
+                + ", maxMs=" + millis(getMax()) + "}";
+    }
+
+    private static String millis (long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,69 @@
+package info.blockchain.api;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps {@link EndpointMetrics} per endpoint in memory, to be read by a monitoring system or
+ * logged periodically:
+ * <pre>
+ * MetricsRegistry metrics = new MetricsRegistry();
+ * HttpClient.setMetrics(metrics);
+ * ...
+ * long p99 = metrics.getEndpoint("multiaddr").getLatency().getValueAtPercentile(99);
+ * </pre>
+ */
+public class MetricsRegistry implements RequestMetrics {
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<String, EndpointMetrics>();
+
+    @Override
+    public void recordRequest (String endpoint, String requestMethod, int statusCode, long latencyNanos, long bytesSent, long bytesReceived) {
+        endpoint(endpoint).recordRequest(statusCode, latencyNanos, bytesSent, bytesReceived);
+    }
+
+    @Override
+    public void recordParse (String endpoint, long parseNanos) {
+        endpoint(endpoint).recordParse(parseNanos);
+    }
+
+    @Override
+    public void recordRetry (String endpoint) {
+        endpoint(endpoint).recordRetry();
+    }
+
+    /**
+     * @param endpoint Endpoint name, e.g. `rawtx`
+     * @return The metrics of the endpoint, null if no request was made to it
+     */
+    public EndpointMetrics getEndpoint (String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * @return The metrics of every endpoint requested so far, by endpoint name
+     */
+    public Map<String, EndpointMetrics> getEndpoints () {
+        return new TreeMap<String, EndpointMetrics>(endpoints);
+    }
+
+    /**
+     * Drops the metrics of all endpoints.
+     */
+    public void reset () {
+        endpoints.clear();
+    }
+
+    private EndpointMetrics endpoint (String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, EndpointMetrics::new);
+    }
+
+    @Override
+    public String toString () {
+        StringBuilder builder = new StringBuilder("MetricsRegistry{");
+        for (EndpointMetrics metrics : getEndpoints().values()) {
+            builder.append('\n').append("  ").append(metrics);
+        }
+        return builder.append(endpoints.isEmpty() ? "}" : "\n}").toString();
+    }
+}
@@ -0,0 +1,337 @@
+package info.blockchain.api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class implements both {@link HttpClientInterface} and {@link AsyncHttpClientInterface}
+ * using the java.net.http client of the JDK. Requests do not hold a thread while waiting on
+ * the network, so a single JVM can have thousands of calls in flight.
+ * <p>
+ * Response bodies are received in full before they are passed to a {@link ResponseHandler},
+ * so a handler does not block a thread of the client while waiting on the network, but
+ * streaming handlers do not save the memory of the raw body as they do with {@link HttpClient}.
+ * <p>
+ * Slow GET requests can be hedged by setting a {@link HedgePolicy} with setHedgePolicy(...).
+ * <p>
+ * Install it globally via HttpClient.setCustomHttpClient(new NonBlockingHttpClient()).
+ */
+public class NonBlockingHttpClient implements HttpClientInterface, AsyncHttpClientInterface {
+    // Marks an exchange that was cancelled before it was sent
+    private static final CompletableFuture<?> CANCELLED = new CompletableFuture<Object>();
+
+    private final java.net.http.HttpClient client;
+    private volatile HedgePolicy hedgePolicy;
+
+    public NonBlockingHttpClient () {
+        this(java.net.http.HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(HttpClient.TIMEOUT_MS))
+                .followRedirects(java.net.http.HttpClient.Redirect.NORMAL)
+                .build());
+    }
+
+    /**
+     * @param client A configured java.net.http client (timeouts, executor, proxy etc.)
+     */
+    public NonBlockingHttpClient (java.net.http.HttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * @param policy The policy for hedging slow GET requests, or null to never hedge (the default)
+     */
+    public void setHedgePolicy (HedgePolicy policy) {
+        hedgePolicy = policy;
+    }
+
+    /**
+     * @return The policy for hedging slow GET requests, null if requests are not hedged
+     */
+    public HedgePolicy getHedgePolicy () {
+        return hedgePolicy;
+    }
+
+    @Override
+    public String get (String resource, Map<String, String> params) throws APIException, IOException {
+        return AsyncExecutor.join(getAsync(resource, params));
+    }
+
+    @Override
+    public String get (String baseURL, String resource, Map<String, String> params) throws APIException, IOException {
+        return AsyncExecutor.join(getAsync(baseURL, resource, params));
+    }
+
+    @Override
+    public String post (String resource, Map<String, String> params) throws APIException, IOException {
+        return AsyncExecutor.join(postAsync(resource, params));
+    }
+
+    @Override
+    public String post (String baseURL, String resource, Map<String, String> params) throws APIException, IOException {
+        return AsyncExecutor.join(postAsync(baseURL, resource, params));
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync (String resource, Map<String, String> params) {
+        return getAsync(HttpClient.BASE_URL, resource, params);
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync (String baseURL, String resource, Map<String, String> params) {
+        return getAsync(baseURL, resource, params, ResponseBodies::readString);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync (String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        return getAsync(HttpClient.BASE_URL, resource, params, handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync (String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        String encodedParams = HttpClient.urlEncodeParams(params);
+        String url = encodedParams.isEmpty() ? baseURL + resource : baseURL + resource + '?' + encodedParams;
+
+        return send(newRequest(url).GET().build(), baseURL, resource, params, handler);
+    }
+
+    @Override
+    public <T> T get (String resource, Map<String, String> params, ResponseHandler<T> handler) throws APIException, IOException {
+        return AsyncExecutor.join(getAsync(resource, params, handler));
+    }
+
+    @Override
+    public <T> T get (String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) throws APIException, IOException {
+        return AsyncExecutor.join(getAsync(baseURL, resource, params, handler));
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync (String resource, Map<String, String> params) {
+        return postAsync(HttpClient.BASE_URL, resource, params);
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync (String baseURL, String resource, Map<String, String> params) {
+        String encodedParams = HttpClient.urlEncodeParams(params);
+
+        return send(newRequest(baseURL + resource)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encodedParams, StandardCharsets.UTF_8))
+                .build(), baseURL, resource, params, ResponseBodies::readString);
+    }
+
+    private HttpRequest.Builder newRequest (String url) {
+        // Covers connecting and waiting for the response, which HttpClient allows
+        // TIMEOUT_MS and READ_TIMEOUT_MS for
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis((long) HttpClient.TIMEOUT_MS + HttpClient.READ_TIMEOUT_MS));
+    }
+
+    /**
+     * Sends the request, repeating it according to HttpClient.getRetryPolicy() without
+     * blocking a thread between attempts.
+     */
+    private <T> CompletableFuture<T> send (HttpRequest request, String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        send(request, baseURL, resource, params, handler, HttpClient.getRetryPolicy(), 1, System.currentTimeMillis(), result);
+        return result;
+    }
+
+    private <T> void send (HttpRequest request, String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler,
+                           RetryPolicy policy, int attempt, long start, CompletableFuture<T> result) {
+        sendHedged(request, baseURL, resource, params, handler).whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            long delay = cause instanceof Exception
+                    ? policy.delayAfterFailure(request.method(), resource, attempt, System.currentTimeMillis() - start, (Exception) cause)
+                    : -1;
+            if (delay < 0) {
+                result.completeExceptionally(HandlerException.unwrap(cause));
+                return;
+            }
+            HttpClient.getMetrics().recordRetry(RequestMetrics.endpointName(resource));
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                    .execute(() -> send(request, baseURL, resource, params, handler, policy, attempt + 1, start, result));
+        });
+    }
+
+    /**
+     * Sends the request once, and a second time if the first has not completed within the
+     * delay of the hedge policy. The first successful response is used and the other
+     * request is cancelled.
+     */
+    private <T> CompletableFuture<T> sendHedged (HttpRequest request, String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        HedgePolicy policy = hedgePolicy;
+        long delay = policy == null ? -1 : policy.hedgeDelay(request.method(), resource);
+        if (delay < 0) {
+            return sendGuarded(request, baseURL, resource, params, handler);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        CompletableFuture<T> primary = sendTimed(policy, request, baseURL, resource, params, handler);
+        AtomicReference<CompletableFuture<T>> hedge = new AtomicReference<CompletableFuture<T>>();
+        AtomicBoolean answered = new AtomicBoolean();
+        primary.whenComplete((value, e) -> {
+            if (e == null) {
+                if (answered.compareAndSet(false, true)) {
+                    result.complete(value);
+                }
+            } else if (hedge.get() == null || hedge.get().isCompletedExceptionally()) {
+                // Without a successful hedge to wait for, the primary's failure is the result
+                result.completeExceptionally(e);
+            }
+        });
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            policy.recordHedge();
+            CompletableFuture<T> second = sendTimed(policy, request, baseURL, resource, params, handler);
+            hedge.set(second);
+            if (result.isDone()) {
+                second.cancel(true);
+                return;
+            }
+            second.whenComplete((value, e) -> {
+                if (e == null) {
+                    if (answered.compareAndSet(false, true)) {
+                        policy.recordHedgeWin();
+                        result.complete(value);
+                    }
+                } else if (primary.isCompletedExceptionally()) {
+                    primary.whenComplete((v, primaryFailure) -> result.completeExceptionally(primaryFailure));
+                }
+            });
+        });
+        // Cancel the loser; this aborts its exchange on JDK 16 and later
+        result.whenComplete((value, e) -> {
+            primary.cancel(true);
+            CompletableFuture<T> second = hedge.get();
+            if (second != null) {
+                second.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> sendTimed (HedgePolicy policy, HttpRequest request, String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        long start = System.nanoTime();
+        CompletableFuture<T> response = sendGuarded(request, baseURL, resource, params, handler);
+        response.thenRun(() -> policy.recordLatency(resource, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        return response;
+    }
+
+    /**
+     * Sends the request once, unless the circuit of its endpoint is open, and reports the
+     * outcome to the circuit.
+     */
+    private <T> CompletableFuture<T> sendGuarded (HttpRequest request, String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        CircuitBreaker.Circuit circuit;
+        try {
+            circuit = HttpClient.acquireCircuit(baseURL, resource);
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> response = sendOnce(request, resource, params, handler);
+        if (circuit != null) {
+            response.whenComplete((value, e) -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause == null) {
+                    circuit.onSuccess();
+                } else if (cause instanceof CancellationException) {
+                    circuit.onCancel();
+                } else {
+                    circuit.onFailure(cause);
+                }
+            });
+        }
+        return response;
+    }
+
+    /**
+     * Sends the request once and reports it to the installed metrics. Cancelling the returned
+     * future cancels the exchange.
+     */
+    private <T> CompletableFuture<T> sendOnce (HttpRequest request, String resource, Map<String, String> params, ResponseHandler<T> handler) {
+        RequestMetrics requestMetrics = HttpClient.getMetrics();
+        String endpoint = RequestMetrics.endpointName(resource);
+        long bytesSent = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+        CallTimer timer = CallTimer.start(resource, request.method());
+        // Start time, status code, received bytes and arrival time of the headers of the exchange
+        long[] measured = new long[4];
+        AtomicReference<CompletableFuture<?>> exchange = new AtomicReference<CompletableFuture<?>>();
+        CompletableFuture<T> response = HttpClient.acquirePermitAsync(params)
+                .thenCompose(permit -> {
+                    measured[0] = System.nanoTime();
+                    if (timer != null) {
+                        timer.start = measured[0];
+                    }
+                    CompletableFuture<HttpResponse<byte[]>> sent = client.sendAsync(request, responseInfo -> {
+                        measured[3] = System.nanoTime();
+                        return HttpResponse.BodySubscribers.ofByteArray();
+                    });
+                    if (!exchange.compareAndSet(null, sent)) {
+                        sent.cancel(true);
+                    }
+                    return sent;
+                })
+                .thenApply(httpResponse -> {
+                    measured[1] = httpResponse.statusCode();
+                    measured[2] = httpResponse.body().length;
+                    if (timer != null) {
+                        // The client does not report connection setup, so it is part of the time to first byte
+                        timer.statusCode = httpResponse.statusCode();
+                        timer.timeToFirstByteNanos = measured[3] - measured[0];
+                        timer.bodyReadNanos = System.nanoTime() - measured[3];
+                    }
+                    try {
+                        if (httpResponse.statusCode() != 200) {
+                            String message = new String(httpResponse.body(), StandardCharsets.UTF_8).trim();
+                            long retryAfter = RetryPolicy.parseRetryAfter(httpResponse.headers().firstValue("Retry-After").orElse(null),
+                                    System.currentTimeMillis());
+                            throw new CompletionException(new APIException(message, httpResponse.statusCode(), retryAfter));
+                        }
+                        long parseStart = System.nanoTime();
+                        T result = AsyncHttpClientInterface.handle(httpResponse.body(),
+                                body -> HandlerException.handle(body, timer == null ? handler : in -> timer.handle(in, handler)));
+                        requestMetrics.recordParse(endpoint, System.nanoTime() - parseStart);
+                        return result;
+                    } finally {
+                        report(requestMetrics, endpoint, request.method(), measured, bytesSent, timer);
+                    }
+                });
+        response.whenComplete((value, e) -> {
+            if (response.isCancelled()) {
+                CompletableFuture<?> sent = exchange.getAndSet(CANCELLED);
+                if (sent != null) {
+                    sent.cancel(true);
+                }
+            } else if (measured[0] != 0 && measured[1] == 0) {
+                // The exchange failed before a response was received
+                report(requestMetrics, endpoint, request.method(), measured, bytesSent, timer);
+            }
+        });
+        return response;
+    }
+
+    private static void report (RequestMetrics requestMetrics, String endpoint, String requestMethod, long[] measured, long bytesSent, CallTimer timer) {
+        requestMetrics.recordRequest(endpoint, requestMethod, (int) measured[1], System.nanoTime() - measured[0],
+                Math.max(0, bytesSent), measured[2]);
+        if (timer != null) {
+            timer.finish();
+        }
+    }
+}
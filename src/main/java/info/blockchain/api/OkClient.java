@@ -4,6 +4,7 @@ import com.squareup.okhttp.*;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -71,7 +72,7 @@ public class OkClient implements HttpClientInterface {
             url.addEncodedQueryParameter(paramName, params.get(paramName));
         }
 
-        return getInternal(url.build());
+        return getInternal(url.build(), params);
     }
 
     /**
@@ -91,15 +92,15 @@ public class OkClient implements HttpClientInterface {
             url.addEncodedQueryParameter(paramName, params.get(paramName));
         }
 
-        return getInternal(url.build());
+        return getInternal(url.build(), params);
     }
 
-    private String getInternal(HttpUrl url) throws IOException {
+    private String getInternal(HttpUrl url, Map<String, String> params) throws IOException {
         Request request = new Request.Builder()
                 .url(url)
                 .build();
 
-        return makeRequest(request);
+        return makeRequest(request, params);
     }
 
     /**
@@ -148,17 +149,87 @@ public class OkClient implements HttpClientInterface {
                 .post(formEncodingBuilder.build())
                 .build();
 
-        return makeRequest(request);
+        return makeRequest(request, params);
   }
 
-    private String makeRequest(Request request) throws IOException {
-      Response response = getOkHttpClientInstance().newCall(request).execute();
-      if (isNotSuccessfulResponse(response))
-          throw new IOException(String.format("Unsuccessful call to %s Response: %s",
-                  request.urlString(),
-                  response));
+    /**
+     * Makes the request, repeating it according to HttpClient.getRetryPolicy().
+     */
+    private String makeRequest(Request request, Map<String, String> params) throws IOException {
+        RetryPolicy policy = HttpClient.getRetryPolicy();
+        long start = System.currentTimeMillis();
+        HttpUrl url = request.httpUrl();
+        String resource = resource(url);
+        String endpoint = RequestMetrics.endpointName(resource);
+        long bytesSent = request.body() == null ? 0 : Math.max(0, request.body().contentLength());
+
+        for (int attempt = 1; ; attempt++) {
+            RequestMetrics metrics = HttpClient.getMetrics();
+            CircuitBreaker.Circuit circuit = HttpClient.acquireCircuit(baseURL(url), resource);
+            Response response;
+            long requestStart = System.nanoTime();
+            try {
+                HttpClient.acquirePermit(params);
+                requestStart = System.nanoTime();
+                response = getOkHttpClientInstance().newCall(request).execute();
+            } catch (IOException e) {
+                metrics.recordRequest(endpoint, request.method(), 0, System.nanoTime() - requestStart, bytesSent, 0);
+                if (circuit != null) {
+                    circuit.onFailure(e);
+                }
+                long delay = policy.delayAfterFailure(request.method(), resource, attempt, System.currentTimeMillis() - start, e);
+                if (delay < 0) {
+                    throw e;
+                }
+                metrics.recordRetry(endpoint);
+                HttpClient.sleep(delay);
+                continue;
+            }
+
+            long retryAfter = RetryPolicy.parseRetryAfter(response.header("Retry-After"), System.currentTimeMillis());
+            if (circuit != null) {
+                if (isNotSuccessfulResponse(response)) {
+                    circuit.onFailure(new APIException(response.message(), response.code(), retryAfter));
+                } else {
+                    circuit.onSuccess();
+                }
+            }
+            if (!isNotSuccessfulResponse(response)) {
+                byte[] body = response.body().bytes();
+                metrics.recordRequest(endpoint, request.method(), response.code(), System.nanoTime() - requestStart, bytesSent, body.length);
+                return new String(body, StandardCharsets.UTF_8);
+            }
+            long bytesReceived = Math.max(0, response.body().contentLength());
+            response.body().close();
+            metrics.recordRequest(endpoint, request.method(), response.code(), System.nanoTime() - requestStart, bytesSent, bytesReceived);
+
+            long delay = policy.delayAfterStatus(request.method(), resource, attempt, System.currentTimeMillis() - start, response.code(), retryAfter);
+            if (delay < 0) {
+                throw new IOException(String.format("Unsuccessful call to %s Response: %s",
+                        request.urlString(),
+                        response));
+            }
+            metrics.recordRetry(endpoint);
+            HttpClient.sleep(delay);
+        }
+    }
+
+    private static String baseURL(HttpUrl url) {
+        String host = url.port() == HttpUrl.defaultPort(url.scheme()) ? url.host() : url.host() + ':' + url.port();
+        return url.scheme() + "://" + host + '/';
+    }
 
-      return response.body().string();
+    /**
+     * @return The decoded path of the URL without its leading slash, e.g. rawblock/{hash}
+     */
+    private static String resource(HttpUrl url) {
+        StringBuilder resource = new StringBuilder();
+        for (String segment : url.pathSegments()) {
+            if (!segment.isEmpty()) {
+                resource.append(resource.length() == 0 ? "" : "/").append(segment);
+            }
+        }
+        return resource.toString();
     }
 
     private HttpUrl.Builder getHttpUrlBuilder(String resource) {
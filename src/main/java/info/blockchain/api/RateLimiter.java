@@ -0,0 +1,157 @@
+package info.blockchain.api;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps requests under the rate Blockchain.info allows per API code, using one token bucket
+ * per API code. Each bucket refills at permitsPerSecond and holds at most burst tokens, so
+ * up to burst requests can be made at once after a quiet period.
+ * <p>
+ * A request that finds the bucket empty reserves the next token and waits until it is due,
+ * so concurrent callers queue up in the order they arrived instead of failing. Install an
+ * instance with HttpClient.setRateLimiter(...) to apply it to all requests.
+ */
+public class RateLimiter {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    // Bucket used for requests made without an API code
+    private static final String NO_API_CODE = "";
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final LongSupplier nanoClock;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+
+    /**
+     * @param permitsPerSecond Number of requests per second allowed for each API code
+     * @param burst            Number of requests that may be made at once
+     */
+    public RateLimiter (double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    RateLimiter (double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        checkLimit(permitsPerSecond, burst);
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Overrides the rate and burst for one API code, for example one with a raised quota.
+     *
+     * @param apiCode          Blockchain.info API code (nullable, for requests without one)
+     * @param permitsPerSecond Number of requests per second allowed
+     * @param burst            Number of requests that may be made at once
+     */
+    public void setLimit (String apiCode, double permitsPerSecond, int burst) {
+        checkLimit(permitsPerSecond, burst);
+        buckets.put(key(apiCode), new Bucket(permitsPerSecond, burst, nanoClock.getAsLong()));
+    }
+
+    /**
+     * Waits until a request with the given API code may be made.
+     *
+     * @param apiCode Blockchain.info API code (nullable)
+     * @throws InterruptedIOException If the thread is interrupted while waiting
+     */
+    public void acquire (String apiCode) throws InterruptedIOException {
+        long waitNanos = reserve(apiCode);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+            }
+        }
+    }
+
+    /**
+     * Reserves the next token for the given API code without blocking.
+     *
+     * @param apiCode Blockchain.info API code (nullable)
+     * @return A future completed once the request may be made
+     */
+    public CompletableFuture<Void> acquireAsync (String apiCode) {
+        long waitNanos = reserve(apiCode);
+        if (waitNanos <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Takes a token for the given API code only if one is available right now.
+     *
+     * @param apiCode Blockchain.info API code (nullable)
+     * @return Whether a request may be made
+     */
+    public boolean tryAcquire (String apiCode) {
+        return bucket(apiCode).tryTake(nanoClock.getAsLong());
+    }
+
+    /**
+     * Takes a token for the given API code, going into debt if the bucket is empty.
+     *
+     * @return Time in nanoseconds until the token is due
+     */
+    long reserve (String apiCode) {
+        return bucket(apiCode).reserve(nanoClock.getAsLong());
+    }
+
+    private Bucket bucket (String apiCode) {
+        return buckets.computeIfAbsent(key(apiCode), k -> new Bucket(permitsPerSecond, burst, nanoClock.getAsLong()));
+    }
+
+    private static String key (String apiCode) {
+        return apiCode == null ? NO_API_CODE : apiCode;
+    }
+
+    private static void checkLimit (double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive and burst at least 1");
+        }
+    }
+
+    private static class Bucket {
+        private final double nanosPerPermit;
+        private final int burst;
+        private double tokens;
+        private long lastRefill;
+
+        Bucket (double permitsPerSecond, int burst, long now) {
+            this.nanosPerPermit = NANOS_PER_SECOND / permitsPerSecond;
+            this.burst = burst;
+            this.tokens = burst;
+            this.lastRefill = now;
+        }
+
+        synchronized long reserve (long now) {
+            refill(now);
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * nanosPerPermit);
+        }
+
+        synchronized boolean tryTake (long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        private void refill (long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(burst, tokens + (now - lastRefill) / nanosPerPermit);
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package info.blockchain.api;
+
+/**
+ * Receives measurements of every request made by {@link HttpClient}, {@link NonBlockingHttpClient}
+ * and {@link OkClient}. Install an implementation, such as {@link MetricsRegistry}, with
+ * HttpClient.setMetrics(...).
+ * <p>
+ * Methods are called on the request path from many threads, so implementations must be
+ * thread-safe and should return quickly. Requests are identified by their endpoint name
+ * (see endpointName(...)) rather than their full resource path, so that hashes and
+ * addresses do not create a name per request.
+ */
+public interface RequestMetrics {
+    RequestMetrics NONE = new RequestMetrics() {
+    };
+
+    /**
+     * Called once per attempt, after the response was handled or the attempt failed.
+     *
+     * @param endpoint      Endpoint name of the request
+     * @param requestMethod HTTP method of the request
+     * @param statusCode    HTTP status code of the response, 0 if none was received
+     * @param latencyNanos  Time from sending the request until its response was handled
+     * @param bytesSent     Size of the request body
+     * @param bytesReceived Size of the response body as received, before decompression
+     */
+    default void recordRequest (String endpoint, String requestMethod, int statusCode, long latencyNanos, long bytesSent, long bytesReceived) {
+    }
+
+    /**
+     * Called after a successful response body was parsed.
+     *
+     * @param endpoint   Endpoint name of the request
+     * @param parseNanos Time spent in the response handler
+     */
+    default void recordParse (String endpoint, long parseNanos) {
+    }
+
+    /**
+     * Called before a failed request is repeated.
+     *
+     * @param endpoint Endpoint name of the request
+     */
+    default void recordRetry (String endpoint) {
+    }
+
+    /**
+     * Names the endpoint of a resource path without the hashes, addresses and IDs it contains,
+     * e.g. `rawtx` for `rawtx/{hash}`, `charts/market-price` for a chart and `merchant/payment`
+     * for `merchant/{guid}/payment`.
+     *
+     * @param resource Resource path of the request
+     * @return The endpoint name
+     */
+    static String endpointName (String resource) {
+        int query = resource.indexOf('?');
+        String path = query == -1 ? resource : resource.substring(0, query);
+        String[] segments = path.split("/");
+        switch (segments[0]) {
+            case "charts":
+                return segments.length > 1 ? "charts/" + segments[1] : "charts";
+            case "merchant":
+                return segments.length > 2 ? "merchant/" + segments[2] : "merchant";
+            case "api":
+            case "v2":
+                // Versioned paths hold no IDs
+                return path;
+            default:
+                return segments[0];
+        }
+    }
+}
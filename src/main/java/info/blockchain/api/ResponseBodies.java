@@ -0,0 +1,70 @@
+package info.blockchain.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Helpers for reading response bodies. Bodies are read as UTF-8 bytes into a buffer that is
+ * reused by all requests made on the same thread, instead of being assembled line by line.
+ */
+public final class ResponseBodies {
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    // Buffers that grew larger than this are not kept, so one huge response does not pin memory
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+    private ResponseBodies () {
+    }
+
+    /**
+     * @param body Response body
+     * @return The body decoded as UTF-8
+     */
+    public static String readString (InputStream body) throws IOException {
+        return read(body, (buffer, length) -> new String(buffer, 0, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param body Response body
+     * @return The raw bytes of the body
+     */
+    public static byte[] readBytes (InputStream body) throws IOException {
+        return read(body, (buffer, length) -> Arrays.copyOf(buffer, length));
+    }
+
+    /**
+     * Parses a JSON body while decoding it from UTF-8, without creating an intermediate String.
+     *
+     * @param body Response body
+     * @return The parsed JSON tree
+     */
+    public static JsonElement readJson (InputStream body) {
+        return CallTimer.parse(() -> new JsonParser().parse(new InputStreamReader(body, StandardCharsets.UTF_8)));
+    }
+
+    private static <T> T read (InputStream body, BufferConverter<T> converter) throws IOException {
+        byte[] buffer = buffers.get();
+        int length = 0;
+        int read;
+        while ((read = body.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        T result = converter.convert(buffer, length);
+        buffers.set(buffer.length <= MAX_POOLED_BUFFER_SIZE ? buffer : new byte[INITIAL_BUFFER_SIZE]);
+        return result;
+    }
+
+    private interface BufferConverter<T> {
+        T convert (byte[] buffer, int length);
+    }
+}
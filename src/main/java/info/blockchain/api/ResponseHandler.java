@@ -0,0 +1,22 @@
+package info.blockchain.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes the body of a successful response directly from the network stream, so large
+ * responses can be parsed without first being copied into a String.
+ *
+ * @param <T> Type of the parsed response
+ */
+@FunctionalInterface
+public interface ResponseHandler<T> {
+
+    /**
+     * @param body UTF-8 encoded response body. It is closed by the caller.
+     * @return The parsed response
+     * @throws IOException If the body cannot be read or parsed
+     */
+    T handle (InputStream body) throws IOException;
+
+}
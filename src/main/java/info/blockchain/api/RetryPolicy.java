@@ -0,0 +1,204 @@
+package info.blockchain.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed request is repeated and how long to wait before doing so.
+ * <p>
+ * Only GET requests of read-only endpoints (see DEFAULT_ENDPOINTS) are repeated, and POST
+ * requests only if retryPosts is set: repeating a payment is not safe, and neither is a
+ * GET of v2/receive, which generates a new address each time. A request is repeated after
+ * an IOException (connection reset, timeout etc.) that occurred before its response body
+ * reached the response handler, or after a 429, 502, 503 or 504 response, up to
+ * maxAttempts attempts in total and as long as the time spent stays within
+ * maxElapsedMillis. The delay grows exponentially from initialBackoffMillis up to
+ * maxBackoffMillis and is randomised ("full jitter") so that clients failing together do
+ * not retry together. A longer delay asked for by a Retry-After header is respected. A
+ * request refused by an open {@link CircuitBreaker} circuit is not repeated.
+ * <p>
+ * The policy used by the transports is set with HttpClient.setRetryPolicy(...).
+ */
+public class RetryPolicy {
+    /**
+     * Endpoint names (see {@link RequestMetrics}) or first path segments of the GET
+     * resources that are read-only and may be repeated.
+     */
+    public static final Set<String> DEFAULT_ENDPOINTS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "rawblock", "rawtx", "block-height", "latestblock", "unconfirmed-transactions", "blocks",
+            "rawaddr", "multiaddr", "balance", "unspent",
+            "ticker", "tobtc", "frombtc",
+            "stats", "charts", "pools",
+            "v2/receive/checkgap", "v2/receive/callback",
+            "merchant/balance", "merchant/list", "merchant/address_balance")));
+
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 0, false);
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 250, 5000, 30000, false);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxElapsedMillis;
+    private final boolean retryPosts;
+    private final Set<String> endpoints;
+
+    /**
+     * @param maxAttempts          Maximum number of attempts, including the first one
+     * @param initialBackoffMillis Upper bound of the delay before the first retry
+     * @param maxBackoffMillis     Upper bound of the delay before any retry
+     * @param maxElapsedMillis     Time after the first attempt after which no retry is started
+     * @param retryPosts           Whether POST requests are repeated as well
+     */
+    public RetryPolicy (int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, long maxElapsedMillis, boolean retryPosts) {
+        this(maxAttempts, initialBackoffMillis, maxBackoffMillis, maxElapsedMillis, retryPosts, DEFAULT_ENDPOINTS);
+    }
+
+    /**
+     * @param maxAttempts          Maximum number of attempts, including the first one
+     * @param initialBackoffMillis Upper bound of the delay before the first retry
+     * @param maxBackoffMillis     Upper bound of the delay before any retry
+     * @param maxElapsedMillis     Time after the first attempt after which no retry is started
+     * @param retryPosts           Whether POST requests are repeated as well
+     * @param endpoints            Endpoint names or first path segments of the GET resources that may be repeated; they must be idempotent
+     */
+    public RetryPolicy (int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, long maxElapsedMillis, boolean retryPosts,
+                        Set<String> endpoints) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.maxElapsedMillis = maxElapsedMillis;
+        this.retryPosts = retryPosts;
+        this.endpoints = new HashSet<String>(endpoints);
+    }
+
+    /**
+     * @param requestMethod HTTP method of the failed request
+     * @param resource      Resource path of the failed request
+     * @param attempt       Number of the attempt that failed, starting at 1
+     * @param elapsedMillis Time since the first attempt started
+     * @param failure       The exception the attempt failed with
+     * @return Milliseconds to wait before the next attempt, -1 if the request must not be repeated
+     */
+    public long delayAfterFailure (String requestMethod, String resource, int attempt, long elapsedMillis, Exception failure) {
+        if (failure instanceof APIException) {
+            APIException e = (APIException) failure;
+            return delayAfterStatus(requestMethod, resource, attempt, elapsedMillis, e.getStatusCode(), e.getRetryAfterMillis());
+        }
+        if (!(failure instanceof IOException) || failure instanceof CircuitOpenException || failure instanceof HandlerException
+                || isInterruption(failure)) {
+            return -1;
+        }
+        return delay(requestMethod, resource, attempt, elapsedMillis, -1);
+    }
+
+    /**
+     * @param requestMethod    HTTP method of the failed request
+     * @param resource         Resource path of the failed request
+     * @param attempt          Number of the attempt that failed, starting at 1
+     * @param elapsedMillis    Time since the first attempt started
+     * @param statusCode       HTTP status code of the response
+     * @param retryAfterMillis Delay asked for by the Retry-After header, -1 if there was none
+     * @return Milliseconds to wait before the next attempt, -1 if the request must not be repeated
+     */
+    public long delayAfterStatus (String requestMethod, String resource, int attempt, long elapsedMillis, int statusCode, long retryAfterMillis) {
+        if (!isRetryableStatus(statusCode)) {
+            return -1;
+        }
+        return delay(requestMethod, resource, attempt, elapsedMillis, retryAfterMillis);
+    }
+
+    public int getMaxAttempts () {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoffMillis () {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis () {
+        return maxBackoffMillis;
+    }
+
+    public long getMaxElapsedMillis () {
+        return maxElapsedMillis;
+    }
+
+    public boolean isRetryPosts () {
+        return retryPosts;
+    }
+
+    /**
+     * @return Whether a request with the given method and resource may be repeated at all
+     */
+    public boolean isRetryable (String requestMethod, String resource) {
+        if (!"GET".equals(requestMethod)) {
+            return retryPosts;
+        }
+        int slash = resource.indexOf('/');
+        return endpoints.contains(RequestMetrics.endpointName(resource))
+                || endpoints.contains(slash == -1 ? resource : resource.substring(0, slash));
+    }
+
+    /**
+     * Parses a Retry-After header given either in seconds or as an HTTP date.
+     *
+     * @param header    Value of the header (nullable)
+     * @param nowMillis Current time in milliseconds since the epoch
+     * @return The requested delay in milliseconds, -1 if the header is missing or invalid
+     */
+    public static long parseRetryAfter (String header, long nowMillis) {
+        if (header == null || header.trim().isEmpty()) {
+            return -1;
+        }
+        String value = header.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, try an HTTP date
+        }
+        try {
+            long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - nowMillis);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private long delay (String requestMethod, String resource, int attempt, long elapsedMillis, long retryAfterMillis) {
+        if (attempt >= maxAttempts || !isRetryable(requestMethod, resource)) {
+            return -1;
+        }
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        long delay = ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+        delay = Math.max(delay, retryAfterMillis);
+        if (elapsedMillis + delay > maxElapsedMillis) {
+            return -1;
+        }
+        return delay;
+    }
+
+    private static boolean isRetryableStatus (int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Timeouts are reported as InterruptedIOException too, but only a real interruption of the
+     * thread means the caller wants to stop.
+     */
+    private static boolean isInterruption (Exception failure) {
+        return failure instanceof InterruptedIOException && !(failure instanceof SocketTimeoutException)
+                || Thread.currentThread().isInterrupted();
+    }
+}
@@ -0,0 +1,120 @@
+package info.blockchain.api;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * De-duplicates identical requests that are in flight at the same time. While a request for
+ * a resource and set of parameters is running, other callers asking for the same one wait
+ * for it and receive the same result (or exception) instead of making their own request.
+ * <p>
+ * Results are shared, not copied, so callers must not modify them. Nothing is kept once a
+ * request has completed; see {@link info.blockchain.api.blockexplorer.BlockExplorerCache}
+ * for caching results.
+ */
+public class SingleFlight {
+    private final ConcurrentHashMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<String, CompletableFuture<?>>();
+
+    /**
+     * Runs the call on the calling thread, unless an identical call is already running, in
+     * which case its result is awaited.
+     *
+     * @param resource Resource path of the request
+     * @param params   Map containing request parameters
+     * @param call     The request to make
+     * @return The result of the call
+     */
+    public <T> T call (String resource, Map<String, String> params, ApiCall<T> call) throws APIException, IOException {
+        String key = key(resource, params);
+        CompletableFuture<T> promise = new CompletableFuture<T>();
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(key, promise);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            T result = call.call();
+            promise.complete(result);
+            return result;
+        } catch (Throwable e) {
+            promise.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, promise);
+        }
+    }
+
+    /**
+     * Starts the call, unless an identical call is already running, in which case a future
+     * of its result is returned.
+     *
+     * @param resource Resource path of the request
+     * @param params   Map containing request parameters
+     * @param call     Starts the request to make
+     * @return A future that contains the result of the call. Cancelling it does not affect
+     * other callers.
+     */
+    public <T> CompletableFuture<T> callAsync (String resource, Map<String, String> params, Supplier<CompletableFuture<T>> call) {
+        String key = key(resource, params);
+        CompletableFuture<T> promise = new CompletableFuture<T>();
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(key, promise);
+        if (running != null) {
+            return running.copy();
+        }
+
+        try {
+            call.get().whenComplete((result, e) -> {
+                inFlight.remove(key, promise);
+                if (e != null) {
+                    promise.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else {
+                    promise.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(e);
+        }
+        return promise.copy();
+    }
+
+    /**
+     * @return Number of distinct requests currently in flight
+     */
+    public int size () {
+        return inFlight.size();
+    }
+
+    private static String key (String resource, Map<String, String> params) {
+        // Sorted, so that equal parameter maps give equal keys regardless of iteration order
+        return resource + '?' + HttpClient.urlEncodeParams(params == null ? null : new TreeMap<String, String>(params));
+    }
+
+    private static <T> T await (CompletableFuture<T> running) throws APIException, IOException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof APIException) {
+                throw (APIException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package info.blockchain.api.blockexplorer;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Splits address lists that are too long for the `active` parameter of a single request
+ * and runs the requests for the resulting chunks in parallel.
+ */
+final class AddressChunks {
+    // Length of the URL encoded "|" separating the addresses
+    private static final int SEPARATOR_LENGTH = 3;
+
+    private AddressChunks () {
+    }
+
+    /**
+     * @param addresses       Addresses to split
+     * @param maxActiveLength Maximum URL encoded length of the addresses joined by "|"
+     * @return The addresses in order, split into chunks that fit the maximum length. An
+     * address that is longer than the maximum by itself gets a chunk of its own.
+     */
+    static List<List<String>> split (List<String> addresses, int maxActiveLength) {
+        List<List<String>> chunks = new ArrayList<List<String>>();
+        List<String> chunk = new ArrayList<String>();
+        int length = 0;
+
+        for (String address : addresses) {
+            int addressLength = encodedLength(address);
+            int newLength = chunk.isEmpty() ? addressLength : length + SEPARATOR_LENGTH + addressLength;
+            if (!chunk.isEmpty() && newLength > maxActiveLength) {
+                chunks.add(chunk);
+                chunk = new ArrayList<String>();
+                newLength = addressLength;
+            }
+            chunk.add(address);
+            length = newLength;
+        }
+        if (!chunk.isEmpty() || chunks.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Calls request for every chunk, with at most maxParallel calls running at a time.
+     *
+     * @param chunks      Chunks to request
+     * @param maxParallel Maximum number of requests running at the same time
+     * @param request     Starts the request for one chunk
+     * @return A future that contains the results in the order of the chunks, or the first
+     * failure. Once a request fails no further requests are started.
+     */
+    static <R> CompletableFuture<List<R>> fanOut (List<List<String>> chunks, int maxParallel, Function<List<String>, CompletableFuture<R>> request) {
+        if (chunks.size() == 1) {
+            return request.apply(chunks.get(0)).thenApply(Arrays::asList);
+        }
+
+        CompletableFuture<List<R>> merged = new CompletableFuture<List<R>>();
+        AtomicReferenceArray<R> results = new AtomicReferenceArray<R>(chunks.size());
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(chunks.size());
+        AtomicBoolean failed = new AtomicBoolean();
+
+        Runnable startNext = new Runnable() {
+            @Override
+            public void run () {
+                int i = next.getAndIncrement();
+                if (i >= chunks.size() || failed.get()) {
+                    return;
+                }
+                CompletableFuture<R> chunkResult;
+                try {
+                    chunkResult = request.apply(chunks.get(i));
+                } catch (RuntimeException e) {
+                    chunkResult = new CompletableFuture<R>();
+                    chunkResult.completeExceptionally(e);
+                }
+                chunkResult.whenComplete((result, e) -> {
+                    if (e != null) {
+                        failed.set(true);
+                        merged.completeExceptionally(e);
+                        return;
+                    }
+                    results.set(i, result);
+                    if (remaining.decrementAndGet() == 0) {
+                        List<R> ordered = new ArrayList<R>(chunks.size());
+                        for (int j = 0; j < chunks.size(); j++) {
+                            ordered.add(results.get(j));
+                        }
+                        merged.complete(ordered);
+                    } else {
+                        run();
+                    }
+                });
+            }
+        };
+
+        for (int i = 0; i < Math.min(Math.max(1, maxParallel), chunks.size()); i++) {
+            startNext.run();
+        }
+        return merged;
+    }
+
+    private static int encodedLength (String address) {
+        try {
+            return URLEncoder.encode(address, "UTF-8").length();
+        } catch (UnsupportedEncodingException e) {
+            return address.length();
+        }
+    }
+}
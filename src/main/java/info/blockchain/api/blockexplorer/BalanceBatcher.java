@@ -0,0 +1,206 @@
+package info.blockchain.api.blockexplorer;
+
+import info.blockchain.api.APIException;
+import info.blockchain.api.blockexplorer.entity.Balance;
+import info.blockchain.api.blockexplorer.entity.FilterType;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects single-address balance requests from any number of threads and sends them to the
+ * `balance` endpoint in batches. A batch is sent once it holds maxBatchSize distinct
+ * addresses, or maxDelayMillis after its first address was added, whichever comes first.
+ * Requests with different filters are batched separately.
+ * <p>
+ * If the API rejects a batch, for example because one of its addresses is invalid, all
+ * requests in that batch fail with the same exception. A request whose address is missing
+ * from the response fails with an APIException naming the address.
+ */
+public class BalanceBatcher implements Closeable {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_DELAY_MS = 50;
+
+    private final BlockExplorer blockExplorer;
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<FilterType, Batch> pending = new HashMap<FilterType, Batch>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private boolean closed;
+
+    /**
+     * @param blockExplorer Block explorer making the batched calls
+     */
+    public BalanceBatcher (BlockExplorer blockExplorer) {
+        this(blockExplorer, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MS);
+    }
+
+    /**
+     * @param blockExplorer  Block explorer making the batched calls
+     * @param maxBatchSize   Maximum number of distinct addresses sent in one call
+     * @param maxDelayMillis Maximum time a request waits for others to join its batch
+     */
+    public BalanceBatcher (BlockExplorer blockExplorer, int maxBatchSize, long maxDelayMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.blockExplorer = blockExplorer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blockchain-api-balance-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds the address to the next batch.
+     *
+     * @param address Base58 or xpub address
+     * @param filter  the filter for transactions selection, use null to indicate default
+     * @return A future that contains the balance of the address
+     */
+    public CompletableFuture<Balance> getBalance (String address, FilterType filter) {
+        CompletableFuture<Balance> balance = new CompletableFuture<Balance>();
+        requests.incrementAndGet();
+
+        Batch full = null;
+        synchronized (pending) {
+            if (closed) {
+                balance.completeExceptionally(new RejectedExecutionException("BalanceBatcher is closed"));
+                return balance;
+            }
+            Batch batch = pending.get(filter);
+            if (batch == null) {
+                batch = new Batch(filter);
+                pending.put(filter, batch);
+                Batch scheduled = batch;
+                batch.timer = scheduler.schedule(() -> flush(scheduled), maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            batch.add(address, balance);
+            if (batch.size() >= maxBatchSize) {
+                pending.remove(filter);
+                batch.timer.cancel(false);
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            send(full);
+        }
+        return balance;
+    }
+
+    /**
+     * @param address Base58 or xpub address
+     * @return A future that contains the balance of the address
+     */
+    public CompletableFuture<Balance> getBalance (String address) {
+        return getBalance(address, null);
+    }
+
+    /**
+     * @return Number of balance requests received
+     */
+    public long getRequests () {
+        return requests.get();
+    }
+
+    /**
+     * @return Number of calls made to the API
+     */
+    public long getBatches () {
+        return batches.get();
+    }
+
+    /**
+     * Sends the pending batches and stops accepting new requests.
+     */
+    @Override
+    public void close () {
+        List<Batch> remaining;
+        synchronized (pending) {
+            closed = true;
+            remaining = new ArrayList<Batch>(pending.values());
+            pending.clear();
+        }
+        for (Batch batch : remaining) {
+            batch.timer.cancel(false);
+            send(batch);
+        }
+        scheduler.shutdown();
+    }
+
+    private void flush (Batch batch) {
+        synchronized (pending) {
+            if (pending.get(batch.filter) != batch) {
+                return;
+            }
+            pending.remove(batch.filter);
+        }
+        send(batch);
+    }
+
+    private void send (Batch batch) {
+        batches.incrementAndGet();
+        List<String> addresses = new ArrayList<String>(batch.waiters.keySet());
+
+        CompletableFuture<Map<String, Balance>> response;
+        try {
+            response = blockExplorer.balanceAsync(addresses, batch.filter);
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<Map<String, Balance>>();
+            response.completeExceptionally(e);
+        }
+
+        response.whenComplete((balances, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            for (Map.Entry<String, List<CompletableFuture<Balance>>> waiter : batch.waiters.entrySet()) {
+                Balance result = cause == null ? balances.get(waiter.getKey()) : null;
+                for (CompletableFuture<Balance> balance : waiter.getValue()) {
+                    if (cause != null) {
+                        balance.completeExceptionally(cause);
+                    } else if (result == null) {
+                        balance.completeExceptionally(new APIException("No balance returned for " + waiter.getKey()));
+                    } else {
+                        balance.complete(result);
+                    }
+                }
+            }
+        });
+    }
+
+    private static class Batch {
+        final FilterType filter;
+        final Map<String, List<CompletableFuture<Balance>>> waiters = new LinkedHashMap<String, List<CompletableFuture<Balance>>>();
+        ScheduledFuture<?> timer;
+
+        Batch (FilterType filter) {
+            this.filter = filter;
+        }
+
+        void add (String address, CompletableFuture<Balance> balance) {
+            waiters.computeIfAbsent(address, a -> new ArrayList<CompletableFuture<Balance>>()).add(balance);
+        }
+
+        int size () {
+            return waiters.size();
+        }
+    }
+}
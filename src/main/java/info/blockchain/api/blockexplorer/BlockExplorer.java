@@ -2,17 +2,23 @@ package info.blockchain.api.blockexplorer;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import info.blockchain.api.APIException;
+import info.blockchain.api.AsyncExecutor;
 import info.blockchain.api.HttpClient;
+import info.blockchain.api.ResponseBodies;
+import info.blockchain.api.SingleFlight;
 import info.blockchain.api.blockexplorer.entity.*;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -20,9 +26,34 @@ import java.util.concurrent.TimeUnit;
  * The BlockExplorer class reflects the functionality documented at
  * https://blockchain.info/api/blockchain_api. It can be used to query the block chain,
  * fetch block, transaction and address data, get unspent outputs for an address etc.
+ * <p>
+ * Blocks and transactions fetched by hash or height are looked up in a
+ * {@link BlockExplorerCache} first if one is passed to the constructor.
+ * <p>
+ * Concurrent identical calls to getBlock and getLatestBlock (and their async variants) share
+ * a single request, also across instances, see {@link SingleFlight}. Every caller puts the
+ * shared result into its own cache.
+ * <p>
+ * Address lists passed to getBalance, getUnspentOutputs and getMultiAddress that do not fit
+ * into one URL are split into chunks of at most MAX_ACTIVE_PARAM_LENGTH characters. The
+ * chunks are requested in parallel, at most MAX_PARALLEL_REQUESTS at a time, and their
+ * results are merged. For getMultiAddress every chunk is asked for its newest offset + limit
+ * transactions, in pages of at most 100, the most multiaddr returns per request.
  */
 public class BlockExplorer {
+    public volatile static int MAX_ACTIVE_PARAM_LENGTH = 4000;
+    public volatile static int MAX_PARALLEL_REQUESTS = 4;
+
+    // Number of transactions multiaddr returns if no limit is given
+    private static final int DEFAULT_MULTIADDRESS_TXS = 50;
+    // Most transactions multiaddr returns for one request
+    private static final int MAX_MULTIADDRESS_TXS = 100;
+
+    private static final SingleFlight inFlight = new SingleFlight();
+
     private final String apiCode;
+    private final AsyncExecutor executor;
+    private final BlockExplorerCache cache;
 
     public BlockExplorer () {
         this(null);
@@ -32,7 +63,26 @@ public class BlockExplorer {
      * @param apiCode Blockchain.info API code (optional, nullable)
      */
     public BlockExplorer (String apiCode) {
+        this(apiCode, AsyncExecutor.getDefault());
+    }
+
+    /**
+     * @param apiCode  Blockchain.info API code (optional, nullable)
+     * @param executor Executor running the `*Async` methods
+     */
+    public BlockExplorer (String apiCode, AsyncExecutor executor) {
+        this(apiCode, executor, null);
+    }
+
+    /**
+     * @param apiCode  Blockchain.info API code (optional, nullable)
+     * @param executor Executor running the `*Async` methods
+     * @param cache    Cache for blocks and transactions (optional, nullable)
+     */
+    public BlockExplorer (String apiCode, AsyncExecutor executor, BlockExplorerCache cache) {
         this.apiCode = apiCode;
+        this.executor = executor;
+        this.cache = cache;
     }
 
     /**
@@ -56,9 +106,15 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Transaction getTransaction (String txHash) throws APIException, IOException {
-        String response = HttpClient.getInstance().get("rawtx/" + txHash, buildBasicRequest());
-        JsonObject txJson = new JsonParser().parse(response).getAsJsonObject();
-        return new Transaction(txJson);
+        Transaction cached = cache == null ? null : cache.getTransaction(txHash);
+        if (cached != null) {
+            return cached;
+        }
+        Transaction transaction = HttpClient.getInstance().get("rawtx/" + txHash, buildBasicRequest(), BlockExplorer::readTransaction);
+        if (cache != null) {
+            cache.putTransaction(txHash, transaction);
+        }
+        return transaction;
     }
 
     /**
@@ -69,15 +125,18 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<Transaction> getTransactionAsync (String txHash) throws APIException, IOException {
-        CompletableFuture<Transaction> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getTransaction(txHash));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
+        Transaction cached = cache == null ? null : cache.getTransaction(txHash);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Transaction> transaction = HttpClient.getAsync(executor, "rawtx/" + txHash, buildBasicRequest(), BlockExplorer::readTransaction);
+        if (cache == null) {
+            return transaction;
+        }
+        return transaction.thenApply(tx -> {
+            cache.putTransaction(txHash, tx);
+            return tx;
         });
-        return completableFuture;
     }
 
     /**
@@ -101,9 +160,18 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Block getBlock (String blockHash) throws APIException, IOException {
-        String response = HttpClient.getInstance().get("rawblock/" + blockHash, buildBasicRequest());
-        JsonObject blockJson = new JsonParser().parse(response).getAsJsonObject();
-        return new Block(blockJson);
+        Block cached = cache == null ? null : cache.getBlock(blockHash);
+        if (cached != null) {
+            return cached;
+        }
+        Map<String, String> params = buildBasicRequest();
+        // The request may be shared with other instances, so each caller fills its own cache
+        Block block = inFlight.call("rawblock/" + blockHash, params,
+                () -> HttpClient.getInstance().get("rawblock/" + blockHash, params, BlockExplorer::readBlock));
+        if (cache != null) {
+            cache.putBlock(blockHash, block);
+        }
+        return block;
     }
 
     /**
@@ -114,15 +182,42 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<Block> getBlockAsync (String blockHash) throws APIException, IOException {
-        CompletableFuture<Block> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getBlock(blockHash));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
+        Block cached = cache == null ? null : cache.getBlock(blockHash);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        Map<String, String> params = buildBasicRequest();
+        CompletableFuture<Block> block = inFlight.callAsync("rawblock/" + blockHash, params,
+                () -> HttpClient.getAsync(executor, "rawblock/" + blockHash, params, BlockExplorer::readBlock));
+        if (cache == null) {
+            return block;
+        }
+        return block.thenApply(b -> {
+            cache.putBlock(blockHash, b);
+            return b;
+        });
+    }
+
+    /**
+     * Streams a single block based on a block hash. Its transactions, inputs and outputs are
+     * passed to the visitor while the response is parsed, so memory use does not depend on
+     * the size of the block. The request is neither retried once the body is being parsed
+     * nor hedged, so the visitor sees every part of the block at most once.
+     * <p>
+     * {@link info.blockchain.api.NonBlockingHttpClient} receives the whole body before parsing
+     * it, so with that transport the raw block is held in memory while it is visited.
+     *
+     * @param blockHash Block hash
+     * @param visitor   Receives the parts of the block as they are parsed
+     * @return Whether the whole block was visited, false if the visitor stopped early
+     * @throws APIException If the server returns an error
+     */
+    public boolean streamBlock (String blockHash, BlockVisitor visitor) throws APIException, IOException {
+        return HttpClient.getInstance().get("rawblock/" + blockHash, buildBasicRequest(), body -> {
+            try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                return Block.stream(reader, visitor);
             }
         });
-        return completableFuture;
     }
 
     /**
@@ -136,20 +231,7 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Address getAddress (String address, FilterType filter, Integer limit, Integer offset) throws APIException, IOException {
-        Map<String, String> params = buildBasicRequest();
-        if (filter != null) {
-            params.put("filter", filter.getFilterInt().toString());
-        }
-        if (limit != null) {
-            params.put("limit", limit.toString());
-        }
-        if (offset != null) {
-            params.put("offset", offset.toString());
-        }
-        String response = HttpClient.getInstance().get("rawaddr/" + address, params);
-        JsonObject addrJson = new JsonParser().parse(response).getAsJsonObject();
-
-        return new Address(addrJson);
+        return HttpClient.getInstance().get("rawaddr/" + address, buildAddressRequest(filter, limit, offset), BlockExplorer::readAddress);
     }
 
     /**
@@ -163,15 +245,7 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<Address> getAddressAsync (String address, FilterType filter, Integer limit, Integer offset) throws APIException, IOException {
-        CompletableFuture<Address> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getAddress(address, filter, limit, offset));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return HttpClient.getAsync(executor, "rawaddr/" + address, buildAddressRequest(filter, limit, offset), BlockExplorer::readAddress);
     }
 
     /**
@@ -205,15 +279,14 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public List<Block> getBlocksAtHeight (long height) throws APIException, IOException {
-        List<Block> blocks = new ArrayList<Block>();
-
-        String response = HttpClient.getInstance().get("block-height/" + height, buildBasicRequest());
-        JsonObject blocksJson = new JsonParser().parse(response).getAsJsonObject();
-
-        for (JsonElement blockElem : blocksJson.get("blocks").getAsJsonArray()) {
-            blocks.add(new Block(blockElem.getAsJsonObject()));
+        List<Block> cached = cache == null ? null : cache.getBlocksAtHeight(height);
+        if (cached != null) {
+            return cached;
+        }
+        List<Block> blocks = HttpClient.getInstance().get("block-height/" + height, buildBasicRequest(), BlockExplorer::readBlocksAtHeight);
+        if (cache != null) {
+            cache.putBlocksAtHeight(height, blocks);
         }
-
         return blocks;
     }
 
@@ -226,15 +299,18 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<List<Block>> getBlocksAtHeightAsync (long height) throws APIException, IOException {
-        CompletableFuture<List<Block>> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getBlocksAtHeight(height));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
+        List<Block> cached = cache == null ? null : cache.getBlocksAtHeight(height);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<List<Block>> blocks = HttpClient.getAsync(executor, "block-height/" + height, buildBasicRequest(), BlockExplorer::readBlocksAtHeight);
+        if (cache == null) {
+            return blocks;
+        }
+        return blocks.thenApply(b -> {
+            cache.putBlocksAtHeight(height, b);
+            return b;
         });
-        return completableFuture;
     }
 
     /**
@@ -247,34 +323,18 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public List<UnspentOutput> getUnspentOutputs (List<String> addressList, Integer confirms, Integer limit) throws APIException, IOException {
-        List<UnspentOutput> outputs = new ArrayList<UnspentOutput>();
-
-        Map<String, String> params = buildBasicRequest();
-        String pipedAddresses = StringUtils.join(addressList, "|");
-        params.put("active", pipedAddresses);
-        if (confirms != null) {
-            params.put("confirmations", confirms.toString());
+        List<List<String>> chunks = AddressChunks.split(addressList, MAX_ACTIVE_PARAM_LENGTH);
+        if (chunks.size() > 1) {
+            return AsyncExecutor.join(unspentOutputsAsync(chunks, confirms, limit));
         }
-        if (limit != null) {
-            params.put("limit", limit.toString());
-        }
-
-        String response = null;
         try {
-            response = HttpClient.getInstance().get("unspent", params);
+            return HttpClient.getInstance().get("unspent", buildUnspentRequest(addressList, confirms, limit), BlockExplorer::readUnspentOutputs);
         } catch (APIException e) {
-            // The server endpoint will return error if no output, however this should be a valid situation so we return an empty result.
-            if (e.getMessage().equals("No free outputs to spend")) {
-                return outputs;
+            if (isNoFreeOutputs(e)) {
+                return new ArrayList<UnspentOutput>();
             }
+            throw e;
         }
-
-        JsonObject outsJson = new JsonParser().parse(response).getAsJsonObject();
-        for (JsonElement outElem : outsJson.get("unspent_outputs").getAsJsonArray()) {
-            outputs.add(new UnspentOutput(outElem.getAsJsonObject()));
-        }
-
-        return outputs;
     }
 
     /**
@@ -287,15 +347,31 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<List<UnspentOutput>> getUnspentOutputsAsync (List<String> addressList, Integer confirms, Integer limit) throws APIException, IOException {
-        CompletableFuture<List<UnspentOutput>> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getUnspentOutputs(addressList, confirms, limit));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
+        return unspentOutputsAsync(AddressChunks.split(addressList, MAX_ACTIVE_PARAM_LENGTH), confirms, limit);
+    }
+
+    private CompletableFuture<List<UnspentOutput>> unspentOutputsAsync (List<List<String>> chunks, Integer confirms, Integer limit) {
+        return AddressChunks.fanOut(chunks, MAX_PARALLEL_REQUESTS, chunk -> unspentOutputsChunkAsync(chunk, confirms, limit))
+                .thenApply(results -> {
+                    List<UnspentOutput> outputs = new ArrayList<UnspentOutput>();
+                    for (List<UnspentOutput> result : results) {
+                        outputs.addAll(result);
+                    }
+                    return limit != null && outputs.size() > limit ? new ArrayList<UnspentOutput>(outputs.subList(0, limit)) : outputs;
+                });
+    }
+
+    private CompletableFuture<List<UnspentOutput>> unspentOutputsChunkAsync (List<String> addressList, Integer confirms, Integer limit) {
+        return HttpClient.getAsync(executor, "unspent", buildUnspentRequest(addressList, confirms, limit), BlockExplorer::readUnspentOutputs).handle((outputs, e) -> {
+            if (e == null) {
+                return outputs;
+            }
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof APIException && isNoFreeOutputs((APIException) cause)) {
+                return new ArrayList<UnspentOutput>();
             }
+            throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
         });
-        return completableFuture;
     }
 
     /**
@@ -327,9 +403,12 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public LatestBlock getLatestBlock () throws APIException, IOException {
-        String response = HttpClient.getInstance().get("latestblock", buildBasicRequest());
-        JsonObject blockObj = new JsonParser().parse(response).getAsJsonObject();
-        return new LatestBlock(blockObj);
+        Map<String, String> params = buildBasicRequest();
+        LatestBlock latestBlock = inFlight.call("latestblock", params, () -> HttpClient.getInstance().get("latestblock", params, BlockExplorer::readLatestBlock));
+        if (cache != null) {
+            cache.updateChainHeight(latestBlock.getHeight());
+        }
+        return latestBlock;
     }
 
     /**
@@ -339,15 +418,16 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<LatestBlock> getLatestBlockAsync () throws APIException, IOException {
-        CompletableFuture<LatestBlock> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getLatestBlock());
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
+        Map<String, String> params = buildBasicRequest();
+        CompletableFuture<LatestBlock> latestBlock = inFlight.callAsync("latestblock", params,
+                () -> HttpClient.getAsync(executor, "latestblock", params, BlockExplorer::readLatestBlock));
+        if (cache == null) {
+            return latestBlock;
+        }
+        return latestBlock.thenApply(b -> {
+            cache.updateChainHeight(b.getHeight());
+            return b;
         });
-        return completableFuture;
     }
 
     /**
@@ -357,17 +437,7 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public List<Transaction> getUnconfirmedTransactions () throws APIException, IOException {
-        List<Transaction> transactions = new ArrayList<Transaction>();
-
-        String response = HttpClient.getInstance().get("unconfirmed-transactions", buildBasicRequest());
-        JsonObject txList = new JsonParser().parse(response).getAsJsonObject();
-
-        for (JsonElement txElem : txList.get("txs").getAsJsonArray()) {
-            JsonObject txObj = txElem.getAsJsonObject();
-            transactions.add(new Transaction(txObj, -1, txObj.get("double_spend").getAsBoolean()));
-        }
-
-        return transactions;
+        return HttpClient.getInstance().get("unconfirmed-transactions", buildBasicRequest(), BlockExplorer::readUnconfirmedTransactions);
     }
 
     /**
@@ -377,15 +447,7 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<List<Transaction>> getUnconfirmedTransactionsAsync () throws APIException, IOException {
-        CompletableFuture<List<Transaction>> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getUnconfirmedTransactions());
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return HttpClient.getAsync(executor, "unconfirmed-transactions", buildBasicRequest(), BlockExplorer::readUnconfirmedTransactions);
     }
 
     /**
@@ -427,15 +489,7 @@ public class BlockExplorer {
      * @return A list of {@link SimpleBlock} objects
      */
     public Future<List<SimpleBlock>> getBlocksAsync (long timestamp) throws APIException, IOException {
-        CompletableFuture<List<SimpleBlock>> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getBlocks(timestamp));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return getBlocksAsync(String.valueOf(timestamp * 1000));
     }
 
     /**
@@ -446,17 +500,9 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public List<SimpleBlock> getBlocks (String poolName) throws APIException, IOException {
-        List<SimpleBlock> blocks = new ArrayList<SimpleBlock>();
         poolName = poolName == null ? "" : poolName;
 
-        String response = HttpClient.getInstance().get("blocks/" + poolName, buildBasicRequest());
-        JsonObject blockList = new JsonParser().parse(response).getAsJsonObject();
-
-        for (JsonElement blockElem : blockList.get("blocks").getAsJsonArray()) {
-            blocks.add(new SimpleBlock(blockElem.getAsJsonObject()));
-        }
-
-        return blocks;
+        return HttpClient.getInstance().get("blocks/" + poolName, buildBasicRequest(), BlockExplorer::readSimpleBlocks);
     }
 
     /**
@@ -467,15 +513,7 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<List<SimpleBlock>> getBlocksAsync (String poolName) throws APIException, IOException {
-        CompletableFuture<List<SimpleBlock>> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getBlocks(poolName));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return HttpClient.getAsync(executor, "blocks/" + (poolName == null ? "" : poolName), buildBasicRequest(), BlockExplorer::readSimpleBlocks);
     }
 
     /**
@@ -486,23 +524,11 @@ public class BlockExplorer {
      * @return a map of (address, {@link Balance})
      */
     public Map<String, Balance> getBalance(List<String> addressList, FilterType filter) throws APIException, IOException {
-        Map<String, String> params = buildBasicRequest();
-        String pipedAddresses = StringUtils.join(addressList, "|");
-        params.put("active", pipedAddresses);
-        if (filter != null) {
-            params.put("filter", filter.getFilterInt().toString());
+        List<List<String>> chunks = AddressChunks.split(addressList, MAX_ACTIVE_PARAM_LENGTH);
+        if (chunks.size() > 1) {
+            return AsyncExecutor.join(chunkedBalanceAsync(chunks, filter));
         }
-
-        String response = HttpClient.getInstance().get("balance", params);
-        JsonObject balanceMap = new JsonParser().parse(response).getAsJsonObject();
-
-        Map<String, Balance> balances = new HashMap<String, Balance>();
-        for (String address : addressList) {
-            JsonObject balance = balanceMap.getAsJsonObject(address);
-            balances.put(address, new Balance(balance));
-        }
-
-        return balances;
+        return HttpClient.getInstance().get("balance", buildBalanceRequest(addressList, filter), body -> readBalances(body, addressList));
     }
 
     /**
@@ -513,15 +539,7 @@ public class BlockExplorer {
      * @return a map of (address, {@link Balance})
      */
     public Future<Map<String, Balance>> getBalanceAsync(List<String> addressList, FilterType filter) throws APIException, IOException {
-        CompletableFuture<Map<String, Balance>> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getBalance(addressList, filter));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return balanceAsync(addressList, filter);
     }
 
     /**
@@ -535,23 +553,10 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public MultiAddress getMultiAddress(List<String> addressList, FilterType filter, Integer limit, Integer offset) throws APIException, IOException {
-        Map<String, String> params = buildBasicRequest();
-        String pipedAddresses = StringUtils.join(addressList, "|");
-        params.put("active", pipedAddresses);
-        if (filter != null) {
-            params.put("filter", filter.getFilterInt().toString());
-        }
-        if (limit != null) {
-            params.put("n", limit.toString());
-        }
-        if (offset != null) {
-            params.put("offset", offset.toString());
+        if (AddressChunks.split(addressList, MAX_ACTIVE_PARAM_LENGTH).size() > 1) {
+            return AsyncExecutor.join(multiAddressAsync(addressList, filter, limit, offset));
         }
-
-        String response = HttpClient.getInstance().get("multiaddr", params);
-        JsonObject addrJson = new JsonParser().parse(response).getAsJsonObject();
-
-        return new MultiAddress(addrJson);
+        return HttpClient.getInstance().get("multiaddr", buildMultiAddressRequest(addressList, filter, limit, offset), BlockExplorer::readMultiAddress);
     }
 
     /**
@@ -565,15 +570,7 @@ public class BlockExplorer {
      * @throws APIException If the server returns an error
      */
     public Future<MultiAddress> getMultiAddressAsync(List<String> addressList, FilterType filter, Integer limit, Integer offset) throws APIException, IOException {
-        CompletableFuture<MultiAddress> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getMultiAddress(addressList, filter, limit, offset));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return multiAddressAsync(addressList, filter, limit, offset);
     }
 
     /**
@@ -601,15 +598,91 @@ public class BlockExplorer {
      * @return {@link XpubFull} an object to represent the xpub summary
      */
     public Future<XpubFull> getXpubAsync(String xpub, FilterType filter, Integer limit, Integer offset) throws APIException, IOException {
-        CompletableFuture<XpubFull> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getXpub(xpub, filter, limit, offset));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
+        return multiAddressAsync(Arrays.asList(xpub), filter, limit, offset)
+                .thenApply(multiAddress -> new XpubFull(multiAddress.getAddresses().get(0), multiAddress.getTxs()));
+    }
+
+    CompletableFuture<Map<String, Balance>> balanceAsync (List<String> addressList, FilterType filter) {
+        return chunkedBalanceAsync(AddressChunks.split(addressList, MAX_ACTIVE_PARAM_LENGTH), filter);
+    }
+
+    private CompletableFuture<Map<String, Balance>> chunkedBalanceAsync (List<List<String>> chunks, FilterType filter) {
+        return AddressChunks.fanOut(chunks, MAX_PARALLEL_REQUESTS,
+                chunk -> HttpClient.getAsync(executor, "balance", buildBalanceRequest(chunk, filter), body -> readBalances(body, chunk)))
+                .thenApply(results -> {
+                    if (results.size() == 1) {
+                        return results.get(0);
+                    }
+                    Map<String, Balance> balances = new HashMap<String, Balance>();
+                    for (Map<String, Balance> result : results) {
+                        balances.putAll(result);
+                    }
+                    return balances;
+                });
+    }
+
+    private CompletableFuture<MultiAddress> multiAddressAsync (List<String> addressList, FilterType filter, Integer limit, Integer offset) {
+        List<List<String>> chunks = AddressChunks.split(addressList, MAX_ACTIVE_PARAM_LENGTH);
+        if (chunks.size() == 1) {
+            return HttpClient.getAsync(executor, "multiaddr", buildMultiAddressRequest(addressList, filter, limit, offset), BlockExplorer::readMultiAddress);
+        }
+
+        // Every chunk could hold the requested page, so each one is asked for everything up to its end
+        int skip = offset == null ? 0 : offset;
+        int count = limit == null ? DEFAULT_MULTIADDRESS_TXS : limit;
+        return AddressChunks.fanOut(chunks, MAX_PARALLEL_REQUESTS,
+                chunk -> multiAddressPagesAsync(chunk, filter, skip + count, null, new ArrayList<Transaction>()))
+                .thenApply(results -> mergeMultiAddresses(results, skip, count));
+    }
+
+    /**
+     * Requests the newest transactions of a chunk page by page, since multiaddr returns at most
+     * MAX_MULTIADDRESS_TXS per request, until the wanted number was received or the chunk has
+     * no more. The totals and addresses are those of the first page.
+     */
+    private CompletableFuture<MultiAddress> multiAddressPagesAsync (List<String> chunk, FilterType filter, int wanted,
+                                                                    MultiAddress first, List<Transaction> txs) {
+        int n = Math.min(MAX_MULTIADDRESS_TXS, wanted - txs.size());
+        return HttpClient.getAsync(executor, "multiaddr", buildMultiAddressRequest(chunk, filter, n, txs.size()), BlockExplorer::readMultiAddress)
+                .thenCompose(page -> {
+                    txs.addAll(page.getTxs());
+                    MultiAddress summary = first == null ? page : first;
+                    if (page.getTxs().size() < n || txs.size() >= wanted) {
+                        return CompletableFuture.completedFuture(new MultiAddress(summary.getMultiAddressBalance(), summary.getAddresses(), txs));
+                    }
+                    return multiAddressPagesAsync(chunk, filter, wanted, summary, txs);
+                });
+    }
+
+    /**
+     * Merges the responses for chunks of an address list. The totals of the wallet are summed,
+     * so the transaction count counts a transaction between addresses of different chunks
+     * once per chunk. Transactions are de-duplicated and paged by time, newest first.
+     */
+    private static MultiAddress mergeMultiAddresses (List<MultiAddress> results, int offset, int limit) {
+        MultiAddressBalance wallet = new MultiAddressBalance(0, 0, 0, 0, 0);
+        List<AddressSummary> addresses = new ArrayList<AddressSummary>();
+        Map<String, Transaction> txs = new LinkedHashMap<String, Transaction>();
+
+        for (MultiAddress result : results) {
+            MultiAddressBalance balance = result.getMultiAddressBalance();
+            wallet.setTxCount(wallet.getTxCount() + balance.getTxCount());
+            wallet.setTxCountFiltered(wallet.getTxCountFiltered() + balance.getTxCountFiltered());
+            wallet.setTotalReceived(wallet.getTotalReceived() + balance.getTotalReceived());
+            wallet.setTotalSent(wallet.getTotalSent() + balance.getTotalSent());
+            wallet.setFinalBalance(wallet.getFinalBalance() + balance.getFinalBalance());
+            addresses.addAll(result.getAddresses());
+            for (Transaction tx : result.getTxs()) {
+                txs.putIfAbsent(tx.getHash(), tx);
             }
-        });
-        return completableFuture;
+        }
+
+        List<Transaction> sorted = new ArrayList<Transaction>(txs.values());
+        sorted.sort(Comparator.comparingLong(Transaction::getTime).reversed());
+        int from = Math.min(offset, sorted.size());
+        int to = Math.min(from + limit, sorted.size());
+
+        return new MultiAddress(wallet, addresses, new ArrayList<Transaction>(sorted.subList(from, to)));
     }
 
     private Map<String, String> buildBasicRequest () {
@@ -621,5 +694,170 @@ public class BlockExplorer {
         }
 
         return params;
-  }
+    }
+
+    private Map<String, String> buildAddressRequest (FilterType filter, Integer limit, Integer offset) {
+        Map<String, String> params = buildBasicRequest();
+        if (filter != null) {
+            params.put("filter", filter.getFilterInt().toString());
+        }
+        if (limit != null) {
+            params.put("limit", limit.toString());
+        }
+        if (offset != null) {
+            params.put("offset", offset.toString());
+        }
+
+        return params;
+    }
+
+    private Map<String, String> buildUnspentRequest (List<String> addressList, Integer confirms, Integer limit) {
+        Map<String, String> params = buildBasicRequest();
+        String pipedAddresses = StringUtils.join(addressList, "|");
+        params.put("active", pipedAddresses);
+        if (confirms != null) {
+            params.put("confirmations", confirms.toString());
+        }
+        if (limit != null) {
+            params.put("limit", limit.toString());
+        }
+
+        return params;
+    }
+
+    private Map<String, String> buildBalanceRequest (List<String> addressList, FilterType filter) {
+        Map<String, String> params = buildBasicRequest();
+        String pipedAddresses = StringUtils.join(addressList, "|");
+        params.put("active", pipedAddresses);
+        if (filter != null) {
+            params.put("filter", filter.getFilterInt().toString());
+        }
+
+        return params;
+    }
+
+    private Map<String, String> buildMultiAddressRequest (List<String> addressList, FilterType filter, Integer limit, Integer offset) {
+        Map<String, String> params = buildBasicRequest();
+        String pipedAddresses = StringUtils.join(addressList, "|");
+        params.put("active", pipedAddresses);
+        if (filter != null) {
+            params.put("filter", filter.getFilterInt().toString());
+        }
+        if (limit != null) {
+            params.put("n", limit.toString());
+        }
+        if (offset != null) {
+            params.put("offset", offset.toString());
+        }
+
+        return params;
+    }
+
+    /**
+     * The unspent endpoint returns an error if there are no outputs, however this should be a
+     * valid situation so callers return an empty result instead.
+     */
+    private static boolean isNoFreeOutputs (APIException e) {
+        return "No free outputs to spend".equals(e.getMessage());
+    }
+
+    private static Transaction readTransaction (InputStream body) {
+        JsonObject txJson = ResponseBodies.readJson(body).getAsJsonObject();
+        return new Transaction(txJson);
+    }
+
+    /**
+     * Builds the block straight from the response stream, without an intermediate String
+     * or JSON tree, which matters for blocks that are several megabytes large.
+     */
+    private static Block readBlock (InputStream body) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return Block.read(reader);
+        }
+    }
+
+    private static Address readAddress (InputStream body) {
+        JsonObject addrJson = ResponseBodies.readJson(body).getAsJsonObject();
+        return new Address(addrJson);
+    }
+
+    private static List<Block> readBlocksAtHeight (InputStream body) throws IOException {
+        List<Block> blocks = new ArrayList<Block>();
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("blocks")) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        blocks.add(Block.read(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        return blocks;
+    }
+
+    private static List<UnspentOutput> readUnspentOutputs (InputStream body) {
+        List<UnspentOutput> outputs = new ArrayList<UnspentOutput>();
+        JsonObject outsJson = ResponseBodies.readJson(body).getAsJsonObject();
+
+        for (JsonElement outElem : outsJson.get("unspent_outputs").getAsJsonArray()) {
+            outputs.add(new UnspentOutput(outElem.getAsJsonObject()));
+        }
+
+        return outputs;
+    }
+
+    private static LatestBlock readLatestBlock (InputStream body) {
+        JsonObject blockObj = ResponseBodies.readJson(body).getAsJsonObject();
+        return new LatestBlock(blockObj);
+    }
+
+    private static List<Transaction> readUnconfirmedTransactions (InputStream body) {
+        List<Transaction> transactions = new ArrayList<Transaction>();
+        JsonObject txList = ResponseBodies.readJson(body).getAsJsonObject();
+
+        for (JsonElement txElem : txList.get("txs").getAsJsonArray()) {
+            JsonObject txObj = txElem.getAsJsonObject();
+            transactions.add(new Transaction(txObj, -1, txObj.get("double_spend").getAsBoolean()));
+        }
+
+        return transactions;
+    }
+
+    private static List<SimpleBlock> readSimpleBlocks (InputStream body) {
+        List<SimpleBlock> blocks = new ArrayList<SimpleBlock>();
+        JsonObject blockList = ResponseBodies.readJson(body).getAsJsonObject();
+
+        for (JsonElement blockElem : blockList.get("blocks").getAsJsonArray()) {
+            blocks.add(new SimpleBlock(blockElem.getAsJsonObject()));
+        }
+
+        return blocks;
+    }
+
+    private static Map<String, Balance> readBalances (InputStream body, List<String> addressList) {
+        JsonObject balanceMap = ResponseBodies.readJson(body).getAsJsonObject();
+
+        Map<String, Balance> balances = new HashMap<String, Balance>();
+        for (String address : addressList) {
+            JsonObject balance = balanceMap.getAsJsonObject(address);
+            if (balance != null) {
+                balances.put(address, new Balance(balance));
+            }
+        }
+
+        return balances;
+    }
+
+    private static MultiAddress readMultiAddress (InputStream body) {
+        JsonObject addrJson = ResponseBodies.readJson(body).getAsJsonObject();
+        return new MultiAddress(addrJson);
+    }
 }
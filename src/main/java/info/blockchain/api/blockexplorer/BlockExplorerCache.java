@@ -0,0 +1,69 @@
+package info.blockchain.api.blockexplorer;
+
+import info.blockchain.api.blockexplorer.entity.Block;
+import info.blockchain.api.blockexplorer.entity.Transaction;
+
+import java.util.List;
+
+/**
+ * A cache consulted by {@link BlockExplorer} before blocks and transactions are fetched by
+ * hash. Implementations decide how long an entry stays valid and must be thread safe.
+ *
+ * @see LruBlockExplorerCache
+ */
+public interface BlockExplorerCache {
+
+    /**
+     * @param blockHash Block hash (or index) the block was requested with
+     * @return The cached block, null if it is not cached
+     */
+    Block getBlock (String blockHash);
+
+    /**
+     * @param blockHash Block hash (or index) the block was requested with
+     * @param block     Block returned by the API
+     */
+    void putBlock (String blockHash, Block block);
+
+    /**
+     * @param txHash Transaction hash (or index) the transaction was requested with
+     * @return The cached transaction, null if it is not cached
+     */
+    Transaction getTransaction (String txHash);
+
+    /**
+     * @param txHash      Transaction hash (or index) the transaction was requested with
+     * @param transaction Transaction returned by the API
+     */
+    void putTransaction (String txHash, Transaction transaction);
+
+    /**
+     * @param height Block height
+     * @return The cached blocks at the given height, null if they are not cached
+     */
+    default List<Block> getBlocksAtHeight (long height) {
+        return null;
+    }
+
+    /**
+     * @param height Block height
+     * @param blocks Blocks at the given height returned by the API
+     */
+    default void putBlocksAtHeight (long height, List<Block> blocks) {
+    }
+
+    /**
+     * Called with the height of the latest block whenever {@link BlockExplorer} learns it, so
+     * that the cache can tell how many confirmations its entries have.
+     *
+     * @param height Height of the latest block on the main chain
+     */
+    default void updateChainHeight (long height) {
+    }
+
+    /**
+     * @return Hit and miss counters of this cache
+     */
+    CacheStats getStats ();
+
+}
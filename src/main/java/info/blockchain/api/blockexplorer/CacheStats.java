@@ -0,0 +1,69 @@
+package info.blockchain.api.blockexplorer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts lookups of a {@link BlockExplorerCache} that were answered from the cache (hits)
+ * or had to go to the API (misses), and the entries the cache dropped to stay in bounds.
+ */
+public class CacheStats {
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public void recordHit () {
+        hits.incrementAndGet();
+    }
+
+    public void recordMiss () {
+        misses.incrementAndGet();
+    }
+
+    public void recordEviction () {
+        evictions.incrementAndGet();
+    }
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long getHits () {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of lookups that found no valid entry
+     */
+    public long getMisses () {
+        return misses.get();
+    }
+
+    /**
+     * @return Number of entries removed because the cache was full or they expired
+     */
+    public long getEvictions () {
+        return evictions.get();
+    }
+
+    /**
+     * @return Ratio of hits to lookups, 0 if no lookup was made yet
+     */
+    public double getHitRate () {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Resets all counters to 0.
+     */
+    public void reset () {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    @Override
+    public String toString () {
+        return "CacheStats{hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "}";
+    }
+}
@@ -0,0 +1,460 @@
+package info.blockchain.api.blockexplorer;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import info.blockchain.api.blockexplorer.entity.Block;
+import info.blockchain.api.blockexplorer.entity.Transaction;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link BlockExplorerCache} that keeps blocks and transactions on disk, so that they
+ * survive restarts of the application.
+ * <p>
+ * Records are appended as JSON to segment files of at most maxSegmentSize bytes, and an
+ * index file maps each key to its segment, offset and length. The index is loaded into
+ * memory when the store is opened; records are parsed straight from memory-mapped segments.
+ * <p>
+ * Only data that no longer changes is stored: blocks on the main chain, transactions that
+ * are included in a block and the blocks at a height, once they are at least
+ * minConfirmations deep. The depth is counted from the highest block height the store has
+ * seen since it was opened, either through updateChainHeight(...), which BlockExplorer calls
+ * after getLatestBlock(), or in the entries put into it; until then nothing is stored. The
+ * spent flags of stored outputs are those of the time the record was written and are never
+ * updated. Records are never removed; delete the directory to reset the store.
+ * <p>
+ * A record that cannot be written, e.g. because the disk is full, is skipped and counted
+ * (see getWriteFailures()), so the lookup that fetched it from the API still succeeds. If
+ * the index could not be written, no further records are stored until the store is reopened.
+ */
+public class DiskBlockStore implements BlockExplorerCache, Closeable {
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 256L * 1024 * 1024;
+    public static final int DEFAULT_MIN_CONFIRMATIONS = 6;
+
+    private static final String INDEX_FILE = "index.dat";
+
+    private final Path directory;
+    private final long maxSegmentSize;
+    private final int minConfirmations;
+    private final CacheStats stats = new CacheStats();
+
+    private final Map<String, Location> index = new HashMap<String, Location>();
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private final DataOutputStream indexOut;
+    private boolean closed;
+    // Set when an index entry may have been written partly, after which the index must not be appended to
+    private boolean indexFailed;
+    private long writeFailures;
+    private IOException lastWriteFailure;
+    private long chainHeight = -1;
+
+    /**
+     * Opens the store in the given directory, creating it if it does not exist.
+     *
+     * @param directory Directory holding the segment and index files
+     */
+    public DiskBlockStore (Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the store in the given directory, creating it if it does not exist.
+     *
+     * @param directory      Directory holding the segment and index files
+     * @param maxSegmentSize Size in bytes after which a new segment file is started
+     */
+    public DiskBlockStore (Path directory, long maxSegmentSize) throws IOException {
+        this(directory, maxSegmentSize, DEFAULT_MIN_CONFIRMATIONS);
+    }
+
+    /**
+     * Opens the store in the given directory, creating it if it does not exist.
+     *
+     * @param directory        Directory holding the segment and index files
+     * @param maxSegmentSize   Size in bytes after which a new segment file is started
+     * @param minConfirmations Confirmations a block or transaction needs to be stored
+     */
+    public DiskBlockStore (Path directory, long maxSegmentSize, int minConfirmations) throws IOException {
+        if (maxSegmentSize < 1 || maxSegmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxSegmentSize must be between 1 and " + Integer.MAX_VALUE);
+        }
+        if (minConfirmations < 1) {
+            throw new IllegalArgumentException("minConfirmations must be at least 1");
+        }
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.minConfirmations = minConfirmations;
+
+        Files.createDirectories(directory);
+        Path indexFile = directory.resolve(INDEX_FILE);
+        long validIndexLength = loadIndex(indexFile);
+        // Drop a record that was only partly written when the application last stopped
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(validIndexLength);
+        }
+        indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile, StandardOpenOption.APPEND)));
+    }
+
+    @Override
+    public Block getBlock (String blockHash) {
+        return read("block:" + blockHash, DiskBlockStore::readBlock);
+    }
+
+    @Override
+    public void putBlock (String blockHash, Block block) {
+        if (block.isMainChain() && isDeep(block.getHeight())) {
+            write("block:" + blockHash, block::write);
+        }
+    }
+
+    @Override
+    public Transaction getTransaction (String txHash) {
+        return read("tx:" + txHash, reader -> Transaction.read(reader, -1, false));
+    }
+
+    @Override
+    public void putTransaction (String txHash, Transaction transaction) {
+        if (transaction.getBlockHeight() >= 0 && isDeep(transaction.getBlockHeight())) {
+            write("tx:" + txHash, transaction::write);
+        }
+    }
+
+    @Override
+    public List<Block> getBlocksAtHeight (long height) {
+        List<String> hashes = lookup("height:" + height, DiskBlockStore::readHashes);
+        List<Block> blocks = hashes == null ? null : new ArrayList<Block>();
+        for (int i = 0; hashes != null && i < hashes.size(); i++) {
+            Block block = lookup("block:" + hashes.get(i), DiskBlockStore::readBlock);
+            if (block == null) {
+                blocks = null;
+                break;
+            }
+            blocks.add(block);
+        }
+        if (blocks == null) {
+            stats.recordMiss();
+        } else {
+            stats.recordHit();
+        }
+        return blocks;
+    }
+
+    @Override
+    public void putBlocksAtHeight (long height, List<Block> blocks) {
+        // No block at a height usually means it was not mined yet
+        if (blocks.isEmpty() || !isDeep(height)) {
+            return;
+        }
+        // As in putBlock(...), blocks off the main chain are not stored, and without them the
+        // list of the height could not be served
+        for (Block block : blocks) {
+            if (!block.isMainChain()) {
+                return;
+            }
+        }
+        for (Block block : blocks) {
+            write("block:" + block.getHash(), block::write);
+        }
+        write("height:" + height, writer -> {
+            writer.beginArray();
+            for (Block block : blocks) {
+                writer.value(block.getHash());
+            }
+            writer.endArray();
+        });
+    }
+
+    @Override
+    public synchronized void updateChainHeight (long height) {
+        chainHeight = Math.max(chainHeight, height);
+    }
+
+    /**
+     * @return Whether a block at the given height is at least minConfirmations deep
+     */
+    private synchronized boolean isDeep (long height) {
+        updateChainHeight(height);
+        return chainHeight - height + 1 >= minConfirmations;
+    }
+
+    @Override
+    public CacheStats getStats () {
+        return stats;
+    }
+
+    /**
+     * @return Number of records in the store
+     */
+    public synchronized int size () {
+        return index.size();
+    }
+
+    /**
+     * @return Number of records that could not be written
+     */
+    public synchronized long getWriteFailures () {
+        return writeFailures;
+    }
+
+    /**
+     * @return The exception the last record that could not be written failed with, null if none
+     */
+    public synchronized IOException getLastWriteFailure () {
+        return lastWriteFailure;
+    }
+
+    /**
+     * @return Directory holding the segment and index files
+     */
+    public Path getDirectory () {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close () throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        indexOut.close();
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+    }
+
+    private <T> T read (String key, RecordReader<T> recordReader) {
+        T value = lookup(key, recordReader);
+        if (value == null) {
+            stats.recordMiss();
+        } else {
+            stats.recordHit();
+        }
+        return value;
+    }
+
+    /**
+     * Parses a record from its memory-mapped segment. A record that cannot be read is
+     * treated as missing, so the caller falls back to the API.
+     */
+    private <T> T lookup (String key, RecordReader<T> recordReader) {
+        try {
+            ByteBuffer record = mapRecord(key);
+            if (record == null) {
+                return null;
+            }
+            try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteBufferInputStream(record), StandardCharsets.UTF_8))) {
+                return recordReader.read(reader);
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private synchronized ByteBuffer mapRecord (String key) throws IOException {
+        Location location = index.get(key);
+        if (location == null || closed) {
+            return null;
+        }
+        Segment segment = segments.get(location.segment);
+        long end = location.offset + location.length;
+        if (segment.mapped == null || segment.mapped.capacity() < end) {
+            segment.mapped = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.channel.size());
+        }
+        ByteBuffer record = segment.mapped.duplicate();
+        record.position((int) location.offset);
+        record.limit((int) end);
+        return record.slice();
+    }
+
+    private synchronized void write (String key, RecordWriter recordWriter) {
+        if (closed || indexFailed || index.containsKey(key)) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8))) {
+                recordWriter.write(writer);
+            }
+            byte[] record = bytes.toByteArray();
+
+            int segmentNumber = segmentFor(record.length);
+            Segment segment = segments.get(segmentNumber);
+            long offset = segment.channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                segment.channel.write(buffer, offset + buffer.position());
+            }
+
+            // The record is written before its index entry, so the index never points to missing data
+            indexFailed = true;
+            indexOut.writeUTF(key);
+            indexOut.writeInt(segmentNumber);
+            indexOut.writeLong(offset);
+            indexOut.writeInt(record.length);
+            indexOut.flush();
+            indexFailed = false;
+            index.put(key, new Location(segmentNumber, offset, record.length));
+        } catch (IOException e) {
+            // A cache that cannot be written must not fail the lookup that fetched the data
+            writeFailures++;
+            lastWriteFailure = e;
+        }
+    }
+
+    private int segmentFor (int recordLength) throws IOException {
+        int last = segments.size() - 1;
+        if (last >= 0) {
+            long size = segments.get(last).channel.size();
+            if (size == 0 || size + recordLength <= maxSegmentSize) {
+                return last;
+            }
+        }
+        openSegment(last + 1);
+        return last + 1;
+    }
+
+    private long loadIndex (Path indexFile) throws IOException {
+        if (!Files.exists(indexFile)) {
+            return 0;
+        }
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            CountingDataInput counter = new CountingDataInput(in);
+            while (true) {
+                String key;
+                int segmentNumber;
+                long offset;
+                int length;
+                try {
+                    key = counter.readUTF();
+                    segmentNumber = counter.readInt();
+                    offset = counter.readLong();
+                    length = counter.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                while (segments.size() <= segmentNumber) {
+                    openSegment(segments.size());
+                }
+                if (offset + length > segments.get(segmentNumber).channel.size()) {
+                    break;
+                }
+                index.put(key, new Location(segmentNumber, offset, length));
+                validLength = counter.position;
+            }
+        }
+        return validLength;
+    }
+
+    private void openSegment (int segmentNumber) throws IOException {
+        Path file = directory.resolve(String.format("segment-%05d.dat", segmentNumber));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.add(new Segment(channel));
+    }
+
+    private static Block readBlock (JsonReader reader) throws IOException {
+        return Block.read(reader);
+    }
+
+    private static List<String> readHashes (JsonReader reader) throws IOException {
+        List<String> hashes = new ArrayList<String>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            hashes.add(reader.nextString());
+        }
+        reader.endArray();
+        return hashes;
+    }
+
+    private interface RecordReader<T> {
+        T read (JsonReader reader) throws IOException;
+    }
+
+    private interface RecordWriter {
+        void write (JsonWriter writer) throws IOException;
+    }
+
+    private static class Location {
+        final int segment;
+        final long offset;
+        final int length;
+
+        Location (int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class Segment {
+        final FileChannel channel;
+        MappedByteBuffer mapped;
+
+        Segment (FileChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Tracks how many bytes of the index were read, to find the end of the last complete record.
+     */
+    private static class CountingDataInput {
+        private final DataInputStream in;
+        long position;
+
+        CountingDataInput (DataInputStream in) {
+            this.in = in;
+        }
+
+        String readUTF () throws IOException {
+            String value = in.readUTF();
+            position += 2 + value.getBytes(StandardCharsets.UTF_8).length;
+            return value;
+        }
+
+        int readInt () throws IOException {
+            position += 4;
+            return in.readInt();
+        }
+
+        long readLong () throws IOException {
+            position += 8;
+            return in.readLong();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream (ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read () {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read (byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package info.blockchain.api.blockexplorer;
+
+import info.blockchain.api.blockexplorer.entity.Block;
+import info.blockchain.api.blockexplorer.entity.Transaction;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-memory {@link BlockExplorerCache} that drops the least recently used entries once it
+ * holds more than a maximum number of entries or a maximum total weight. The weight of an
+ * entry is the size in bytes the API reports for the block or transaction.
+ * <p>
+ * Blocks on the main chain and transactions included in a block are kept for
+ * confirmedTtlMillis once they are minConfirmations deep, since a reorganisation is then
+ * unlikely. The depth is counted from the highest block height the cache has seen, either
+ * through updateChainHeight(...) or in the entries put into it. Shallower and unconfirmed
+ * transactions and orphaned blocks are kept for unconfirmedTtlMillis only.
+ * <p>
+ * The spent flags of the outputs of a cached block or transaction are those of the time it
+ * was fetched and may be stale for up to confirmedTtlMillis.
+ */
+public class LruBlockExplorerCache implements BlockExplorerCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
+    public static final long DEFAULT_CONFIRMED_TTL_MS = 60L * 60 * 1000;
+    public static final long DEFAULT_UNCONFIRMED_TTL_MS = 10000;
+    public static final int DEFAULT_MIN_CONFIRMATIONS = 6;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long confirmedTtlMillis;
+    private final long unconfirmedTtlMillis;
+    private final int minConfirmations;
+    private final LongSupplier clock;
+
+    private final CacheStats stats = new CacheStats();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long weight;
+    private long chainHeight = -1;
+
+    public LruBlockExplorerCache () {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxEntries Maximum number of blocks and transactions kept
+     * @param maxWeight  Maximum total size in bytes of the blocks and transactions kept
+     */
+    public LruBlockExplorerCache (int maxEntries, long maxWeight) {
+        this(maxEntries, maxWeight, DEFAULT_CONFIRMED_TTL_MS, DEFAULT_UNCONFIRMED_TTL_MS);
+    }
+
+    /**
+     * @param maxEntries           Maximum number of blocks and transactions kept
+     * @param maxWeight            Maximum total size in bytes of the blocks and transactions kept
+     * @param confirmedTtlMillis   Time confirmed entries stay valid, Long.MAX_VALUE to keep them until evicted
+     * @param unconfirmedTtlMillis Time unconfirmed entries stay valid
+     */
+    public LruBlockExplorerCache (int maxEntries, long maxWeight, long confirmedTtlMillis, long unconfirmedTtlMillis) {
+        this(maxEntries, maxWeight, confirmedTtlMillis, unconfirmedTtlMillis, DEFAULT_MIN_CONFIRMATIONS);
+    }
+
+    /**
+     * @param maxEntries           Maximum number of blocks and transactions kept
+     * @param maxWeight            Maximum total size in bytes of the blocks and transactions kept
+     * @param confirmedTtlMillis   Time confirmed entries stay valid, Long.MAX_VALUE to keep them until evicted
+     * @param unconfirmedTtlMillis Time unconfirmed entries stay valid
+     * @param minConfirmations     Confirmations a block or transaction needs to be kept for confirmedTtlMillis
+     */
+    public LruBlockExplorerCache (int maxEntries, long maxWeight, long confirmedTtlMillis, long unconfirmedTtlMillis, int minConfirmations) {
+        this(maxEntries, maxWeight, confirmedTtlMillis, unconfirmedTtlMillis, minConfirmations, System::currentTimeMillis);
+    }
+
+    LruBlockExplorerCache (int maxEntries, long maxWeight, long confirmedTtlMillis, long unconfirmedTtlMillis, int minConfirmations,
+                           LongSupplier clock) {
+        if (maxEntries < 1 || maxWeight < 1 || minConfirmations < 1) {
+            throw new IllegalArgumentException("maxEntries, maxWeight and minConfirmations must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.confirmedTtlMillis = confirmedTtlMillis;
+        this.unconfirmedTtlMillis = unconfirmedTtlMillis;
+        this.minConfirmations = minConfirmations;
+        this.clock = clock;
+    }
+
+    @Override
+    public Block getBlock (String blockHash) {
+        return (Block) get("block:" + blockHash);
+    }
+
+    @Override
+    public void putBlock (String blockHash, Block block) {
+        put("block:" + blockHash, block, block.getSize(), block.isMainChain() ? block.getHeight() : -1);
+    }
+
+    @Override
+    public Transaction getTransaction (String txHash) {
+        return (Transaction) get("tx:" + txHash);
+    }
+
+    @Override
+    public void putTransaction (String txHash, Transaction transaction) {
+        put("tx:" + txHash, transaction, transaction.getSize(), transaction.getBlockHeight());
+    }
+
+    @Override
+    public synchronized void updateChainHeight (long height) {
+        chainHeight = Math.max(chainHeight, height);
+    }
+
+    @Override
+    public CacheStats getStats () {
+        return stats;
+    }
+
+    /**
+     * @return Number of entries currently kept
+     */
+    public synchronized int size () {
+        return entries.size();
+    }
+
+    /**
+     * @return Total weight of the entries currently kept
+     */
+    public synchronized long weight () {
+        return weight;
+    }
+
+    /**
+     * Removes all entries. The statistics are not reset.
+     */
+    public synchronized void clear () {
+        entries.clear();
+        weight = 0;
+    }
+
+    private synchronized Object get (String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= clock.getAsLong()) {
+            remove(key, entry);
+            stats.recordEviction();
+            entry = null;
+        }
+        if (entry == null) {
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        return entry.value;
+    }
+
+    /**
+     * @param height Height of the block on the main chain the entry belongs to, -1 if none
+     */
+    private synchronized void put (String key, Object value, long size, long height) {
+        long entryWeight = Math.max(1, size);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        updateChainHeight(height);
+        boolean confirmed = height >= 0 && chainHeight - height + 1 >= minConfirmations;
+        long ttl = confirmed ? confirmedTtlMillis : unconfirmedTtlMillis;
+        if (ttl <= 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long expiresAt = ttl > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttl;
+
+        Entry previous = entries.put(key, new Entry(value, entryWeight, expiresAt));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entryWeight;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || weight > maxWeight) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.weight;
+            stats.recordEviction();
+        }
+    }
+
+    private void remove (String key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+    }
+
+    private static class Entry {
+        final Object value;
+        final long weight;
+        final long expiresAt;
+
+        Entry (Object value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
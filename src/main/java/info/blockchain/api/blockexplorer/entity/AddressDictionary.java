@@ -0,0 +1,58 @@
+package info.blockchain.api.blockexplorer.entity;
+
+/**
+ * A bounded table of recently parsed addresses, shared by all responses. Outputs and the
+ * previous outputs of inputs look their address up in it, so an address that appears many
+ * times in a block, a wallet history or consecutive responses is kept as one String instead
+ * of a copy per output.
+ * <p>
+ * Each address has one slot, chosen by its hash. An address replaces the one in its slot,
+ * so memory stays bounded by the capacity and lookups need no locking, at the cost of
+ * occasionally keeping a duplicate.
+ */
+public final class AddressDictionary {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    // Races between threads at worst replace an entry with an equal one or lose one, and
+    // Strings are safe to share without synchronization
+    private static volatile String[] table = new String[DEFAULT_CAPACITY];
+
+    private AddressDictionary () {
+    }
+
+    /**
+     * Replaces the table with an empty one.
+     *
+     * @param capacity Number of addresses kept, rounded up to a power of two. 0 turns the
+     *                 dictionary off.
+     */
+    public static void setCapacity (int capacity) {
+        if (capacity < 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 0 and 2^30");
+        }
+        table = new String[capacity <= 1 ? capacity : Integer.highestOneBit(capacity - 1) << 1];
+    }
+
+    public static int getCapacity () {
+        return table.length;
+    }
+
+    /**
+     * @param address Address as parsed
+     * @return An equal address seen before, or the given one if there is none
+     */
+    public static String intern (String address) {
+        String[] entries = table;
+        if (address == null || address.isEmpty() || entries.length == 0) {
+            return address;
+        }
+        int hash = address.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (entries.length - 1);
+        String entry = entries[index];
+        if (address.equals(entry)) {
+            return entry;
+        }
+        entries[index] = address;
+        return address;
+    }
+}
@@ -2,7 +2,10 @@ package info.blockchain.api.blockexplorer.entity;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -47,6 +50,218 @@ public class Block extends SimpleBlock {
         }
     }
 
+    /**
+     * Reads a block from a JSON stream positioned at the start of the block object. Unlike
+     * Block(JsonObject), this does not need the whole response to be parsed into a tree first.
+     *
+     * @param reader JSON stream
+     * @return An instance of the {@link Block} class
+     */
+    public static Block read (JsonReader reader) throws IOException {
+        return read(reader, null, null);
+    }
+
+    /**
+     * Reads a block like read(JsonReader), compacting each transaction as soon as it is read
+     * (see {@link #compact()}), so the whole block is never held as objects.
+     *
+     * @param reader JSON stream
+     * @return An instance of the {@link Block} class with compact transactions
+     */
+    public static Block readCompact (JsonReader reader) throws IOException {
+        return readCompact(reader, false);
+    }
+
+    /**
+     * @param reader           JSON stream
+     * @param hash160Addresses Whether to keep Base58Check addresses as hash160, see {@link Transaction#compact(boolean)}
+     * @return An instance of the {@link Block} class with compact transactions
+     */
+    public static Block readCompact (JsonReader reader, boolean hash160Addresses) throws IOException {
+        return read(reader, null, new CompactStore.Builder(hash160Addresses));
+    }
+
+    /**
+     * Returns a copy of this block whose transactions store their inputs and outputs in arrays
+     * shared by the whole block, with one instance of every address. See {@link Transaction#compact()}.
+     *
+     * @return The compact block
+     */
+    public Block compact () {
+        return compact(false);
+    }
+
+    /**
+     * @param hash160Addresses Whether to keep Base58Check addresses as hash160, see {@link Transaction#compact(boolean)}
+     * @return The compact block
+     */
+    public Block compact (boolean hash160Addresses) {
+        List<Transaction> compactTransactions = null;
+        if (transactions != null) {
+            CompactStore.Builder builder = new CompactStore.Builder(hash160Addresses);
+            for (Transaction transaction : transactions) {
+                builder.add(transaction);
+            }
+            compactTransactions = builder.build();
+        }
+        return new Block(getHeight(), getHash(), getTime(), isMainChain(), version, previousBlockHash, merkleRoot, bits,
+                fees, nonce, size, index, receivedTime, relayedBy, compactTransactions);
+    }
+
+    /**
+     * Writes this block in the format read by read(JsonReader).
+     *
+     * @param writer JSON stream
+     */
+    public void write (JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("height").value(getHeight());
+        writer.name("hash").value(getHash());
+        writer.name("time").value(getTime());
+        writer.name("main_chain").value(isMainChain());
+        writer.name("ver").value(version);
+        writer.name("prev_block").value(previousBlockHash);
+        writer.name("mrkl_root").value(merkleRoot);
+        writer.name("bits").value(bits);
+        writer.name("fee").value(fees);
+        writer.name("nonce").value(nonce);
+        writer.name("size").value(size);
+        writer.name("block_index").value(index);
+        writer.name("received_time").value(receivedTime);
+        if (relayedBy != null) {
+            writer.name("relayed_by").value(relayedBy);
+        }
+        writer.name("tx").beginArray();
+        for (Transaction transaction : transactions) {
+            transaction.write(writer);
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    /**
+     * Parses a block from a JSON stream and passes its transactions, inputs and outputs to the
+     * visitor one by one instead of building the list of transactions.
+     *
+     * @param reader  JSON stream positioned at the start of the block object
+     * @param visitor Receives the parts of the block as they are parsed
+     * @return Whether the whole block was parsed, false if the visitor stopped early
+     */
+    public static boolean stream (JsonReader reader, BlockVisitor visitor) throws IOException {
+        Block header = read(reader, visitor, null);
+        if (header == null) {
+            return false;
+        }
+        visitor.visitBlock(header);
+        return true;
+    }
+
+    /**
+     * @param visitor             Receives the transactions instead of the returned block (nullable)
+     * @param compactTransactions Receives the transactions to compact them (nullable)
+     * @return The block, or null if the visitor stopped parsing
+     */
+    private static Block read (JsonReader reader, BlockVisitor visitor, CompactStore.Builder compactTransactions) throws IOException {
+        long height = -1;
+        String hash = null;
+        long time = 0;
+        boolean mainChain = false;
+        int version = 0;
+        String previousBlockHash = null;
+        String merkleRoot = null;
+        long bits = 0;
+        long fees = 0;
+        long nonce = 0;
+        long size = 0;
+        long index = 0;
+        Long receivedTime = null;
+        String relayedBy = null;
+        List<Transaction> transactions = new ArrayList<Transaction>();
+        boolean heightKnownForTransactions = true;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "height":
+                    height = reader.nextLong();
+                    break;
+                case "hash":
+                    hash = reader.nextString();
+                    break;
+                case "time":
+                    time = reader.nextLong();
+                    break;
+                case "main_chain":
+                    mainChain = reader.nextBoolean();
+                    break;
+                case "ver":
+                    version = reader.nextInt();
+                    break;
+                case "prev_block":
+                    previousBlockHash = reader.nextString();
+                    break;
+                case "mrkl_root":
+                    merkleRoot = reader.nextString();
+                    break;
+                case "bits":
+                    bits = reader.nextLong();
+                    break;
+                case "fee":
+                    fees = reader.nextLong();
+                    break;
+                case "nonce":
+                    nonce = reader.nextLong();
+                    break;
+                case "size":
+                    size = reader.nextLong();
+                    break;
+                case "block_index":
+                    index = reader.nextLong();
+                    break;
+                case "received_time":
+                    receivedTime = reader.nextLong();
+                    break;
+                case "relayed_by":
+                    relayedBy = JsonReaders.nextStringOrNull(reader);
+                    break;
+                case "tx":
+                    heightKnownForTransactions = height != -1;
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Transaction transaction = Transaction.read(reader, height, false, visitor);
+                        if (visitor == null) {
+                            if (compactTransactions != null) {
+                                compactTransactions.add(transaction);
+                            } else {
+                                transactions.add(transaction);
+                            }
+                        } else if (transaction == null || !visitor.visitTransaction(transaction)) {
+                            return null;
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (compactTransactions != null) {
+            transactions = compactTransactions.build();
+        }
+
+        // The transactions were read before the block height, so they need to be given it now
+        if (!heightKnownForTransactions && height != -1) {
+            for (Transaction transaction : transactions) {
+                transaction.setBlockHeight(height);
+            }
+        }
+
+        return new Block(height, hash, time, mainChain, version, previousBlockHash, merkleRoot, bits, fees, nonce, size,
+                index, receivedTime != null ? receivedTime : time, relayedBy, transactions);
+    }
+
     @Override
     public boolean equals (Object o) {
         if (this == o) {
@@ -0,0 +1,48 @@
+package info.blockchain.api.blockexplorer.entity;
+
+/**
+ * Receives the parts of a block while it is being parsed, see Block.stream(...). Only the
+ * transaction currently being parsed is held in memory, regardless of the block size.
+ * <p>
+ * Every `visit` method returning a boolean can return false to stop parsing early.
+ */
+public interface BlockVisitor {
+
+    /**
+     * Called for each input as soon as it is parsed, before its transaction is complete.
+     *
+     * @param input The parsed input
+     * @return Whether to continue parsing
+     */
+    default boolean visitInput (Input input) {
+        return true;
+    }
+
+    /**
+     * Called for each output as soon as it is parsed, before its transaction is complete.
+     *
+     * @param output The parsed output
+     * @return Whether to continue parsing
+     */
+    default boolean visitOutput (Output output) {
+        return true;
+    }
+
+    /**
+     * Called for each transaction once it is parsed, including its inputs and outputs.
+     *
+     * @param transaction The parsed transaction
+     * @return Whether to continue parsing
+     */
+    default boolean visitTransaction (Transaction transaction) {
+        return true;
+    }
+
+    /**
+     * Called once the whole block has been parsed, unless parsing was stopped early.
+     *
+     * @param block The block header. Its transaction list is empty.
+     */
+    default void visitBlock (Block block) {
+    }
+}
@@ -0,0 +1,253 @@
+package info.blockchain.api.blockexplorer.entity;
+
+import info.blockchain.api.etc.AddressValidator;
+import info.blockchain.api.etc.Base58;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The inputs and outputs of a list of transactions, stored as one array per field instead
+ * of an object per input and output, see {@link Transaction#compact()}. All transactions of
+ * a block share one store, and their input and output lists are views of a range of it.
+ * The views create inputs and outputs on access, so get returns equal but not identical
+ * instances, and they cannot be modified.
+ * <p>
+ * Optionally, Base58Check addresses are stored as their version byte and hash160 in one
+ * array, 21 bytes per address, and encoded again when an output is created.
+ */
+final class CompactStore {
+    private static final int KEY_LENGTH = 21;
+
+    // Transaction outputs and the previous outputs of inputs
+    private final int[] n;
+    private final long[] values;
+    private final long[] txIndexes;
+    private final String[] addresses;
+    // Version byte and hash160 of the outputs in keyedAddresses, whose addresses entry is null
+    private final byte[] addressKeys;
+    private final BitSet keyedAddresses;
+    private final byte[][] scripts;
+    private final BitSet spent;
+    // Inputs, with the index of their previous output or -1 for coinbase inputs
+    private final long[] sequences;
+    private final byte[][] scriptSignatures;
+    private final int[] previousOutputs;
+
+    private CompactStore (Builder builder) {
+        n = Arrays.copyOf(builder.n, builder.outputCount);
+        values = Arrays.copyOf(builder.values, builder.outputCount);
+        txIndexes = Arrays.copyOf(builder.txIndexes, builder.outputCount);
+        addresses = Arrays.copyOf(builder.addresses, builder.outputCount);
+        addressKeys = builder.addressKeys == null ? null : Arrays.copyOf(builder.addressKeys, builder.outputCount * KEY_LENGTH);
+        keyedAddresses = builder.keyedAddresses;
+        scripts = Arrays.copyOf(builder.scripts, builder.outputCount);
+        spent = builder.spent;
+        sequences = Arrays.copyOf(builder.sequences, builder.inputCount);
+        scriptSignatures = Arrays.copyOf(builder.scriptSignatures, builder.inputCount);
+        previousOutputs = Arrays.copyOf(builder.previousOutputs, builder.inputCount);
+    }
+
+    static boolean isCompact (List<?> list) {
+        return list instanceof Outputs || list instanceof Inputs;
+    }
+
+    private Output output (int index) {
+        String address = keyedAddresses.get(index) ? Base58.encodeChecked(addressKeys, index * KEY_LENGTH, KEY_LENGTH) : addresses[index];
+        return new Output(n[index], values[index], address, txIndexes[index], scripts[index], spent.get(index));
+    }
+
+    private Input input (int index) {
+        int previousOutput = previousOutputs[index];
+        return new Input(previousOutput == -1 ? null : output(previousOutput), sequences[index], scriptSignatures[index]);
+    }
+
+    /**
+     * Compacts transactions one at a time, so the inputs and outputs of a transaction can be
+     * dropped as soon as it is added.
+     */
+    static final class Builder {
+        private final Map<String, String> addressPool = new HashMap<String, String>();
+        private final List<Transaction> headers = new ArrayList<Transaction>();
+        // First input, number of inputs, first output and number of outputs of each
+        // transaction. The count is -1 for null lists.
+        private int[] ranges = new int[64];
+
+        private int outputCount;
+        private int[] n = new int[16];
+        private long[] values = new long[16];
+        private long[] txIndexes = new long[16];
+        private String[] addresses = new String[16];
+        private final boolean hash160Addresses;
+        // Allocated when the first address is stored as hash160
+        private byte[] addressKeys;
+        private final BitSet keyedAddresses = new BitSet();
+        private final byte[] key = new byte[KEY_LENGTH];
+        private byte[][] scripts = new byte[16][];
+        private final BitSet spent = new BitSet();
+
+        private int inputCount;
+        private long[] sequences = new long[16];
+        private byte[][] scriptSignatures = new byte[16][];
+        private int[] previousOutputs = new int[16];
+
+        /**
+         * @param hash160Addresses Whether to store Base58Check addresses as version byte and hash160
+         */
+        Builder (boolean hash160Addresses) {
+            this.hash160Addresses = hash160Addresses;
+        }
+
+        void add (Transaction transaction) {
+            List<Input> inputs = transaction.getInputs();
+            List<Output> outputs = transaction.getOutputs();
+            int range = 4 * headers.size();
+            if (ranges.length < range + 4) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            headers.add(new Transaction(transaction.isDoubleSpend(), transaction.getBlockHeight(), transaction.getTime(),
+                    transaction.getLockTime(), transaction.getRelayedBy(), transaction.getHash(), transaction.getIndex(),
+                    transaction.getVersion(), transaction.getSize(), null, null));
+
+            ranges[range] = inputCount;
+            ranges[range + 1] = inputs == null ? -1 : inputs.size();
+            if (inputs != null) {
+                for (Input input : inputs) {
+                    addInput(input);
+                }
+            }
+            // Previous outputs of the inputs were added in front of the transaction's own outputs
+            ranges[range + 2] = outputCount;
+            ranges[range + 3] = outputs == null ? -1 : outputs.size();
+            if (outputs != null) {
+                for (Output output : outputs) {
+                    addOutput(output);
+                }
+            }
+        }
+
+        /**
+         * @return The added transactions, in order, with input and output lists backed by one store
+         */
+        List<Transaction> build () {
+            CompactStore store = new CompactStore(this);
+            List<Transaction> transactions = new ArrayList<Transaction>(headers.size());
+            for (int i = 0; i < headers.size(); i++) {
+                Transaction t = headers.get(i);
+                int range = 4 * i;
+                transactions.add(new Transaction(t.isDoubleSpend(), t.getBlockHeight(), t.getTime(), t.getLockTime(),
+                        t.getRelayedBy(), t.getHash(), t.getIndex(), t.getVersion(), t.getSize(),
+                        ranges[range + 1] == -1 ? null : new Inputs(store, ranges[range], ranges[range + 1]),
+                        ranges[range + 3] == -1 ? null : new Outputs(store, ranges[range + 2], ranges[range + 3])));
+            }
+            return transactions;
+        }
+
+        private void addInput (Input input) {
+            if (inputCount == sequences.length) {
+                int capacity = inputCount * 2;
+                sequences = Arrays.copyOf(sequences, capacity);
+                scriptSignatures = Arrays.copyOf(scriptSignatures, capacity);
+                previousOutputs = Arrays.copyOf(previousOutputs, capacity);
+            }
+            Output previousOutput = input.getPreviousOutput();
+            sequences[inputCount] = input.getSequence();
+            scriptSignatures[inputCount] = input.getScriptSignatureBytes();
+            previousOutputs[inputCount] = previousOutput == null ? -1 : addOutput(previousOutput);
+            inputCount++;
+        }
+
+        private int addOutput (Output output) {
+            if (outputCount == n.length) {
+                int capacity = outputCount * 2;
+                n = Arrays.copyOf(n, capacity);
+                values = Arrays.copyOf(values, capacity);
+                txIndexes = Arrays.copyOf(txIndexes, capacity);
+                addresses = Arrays.copyOf(addresses, capacity);
+                scripts = Arrays.copyOf(scripts, capacity);
+                if (addressKeys != null) {
+                    addressKeys = Arrays.copyOf(addressKeys, capacity * KEY_LENGTH);
+                }
+            }
+            n[outputCount] = output.getN();
+            values[outputCount] = output.getValue();
+            txIndexes[outputCount] = output.getTxIndex();
+            String address = output.getAddress();
+            if (hash160Addresses && AddressValidator.decode(address, key, 0)) {
+                if (addressKeys == null) {
+                    addressKeys = new byte[n.length * KEY_LENGTH];
+                }
+                System.arraycopy(key, 0, addressKeys, outputCount * KEY_LENGTH, KEY_LENGTH);
+                keyedAddresses.set(outputCount);
+            } else {
+                addresses[outputCount] = pooled(address);
+            }
+            scripts[outputCount] = output.getScriptBytes();
+            spent.set(outputCount, output.isSpent());
+            return outputCount++;
+        }
+
+        private String pooled (String address) {
+            // Output tells outputs without an address apart by the identity of the empty string,
+            // so only non-empty addresses are shared
+            if (address == null || address.isEmpty()) {
+                return address;
+            }
+            String pooled = addressPool.putIfAbsent(address, address);
+            return pooled != null ? pooled : address;
+        }
+    }
+
+    private static final class Outputs extends AbstractList<Output> implements RandomAccess {
+        private final CompactStore store;
+        private final int from;
+        private final int size;
+
+        Outputs (CompactStore store, int from, int size) {
+            this.store = store;
+            this.from = from;
+            this.size = size;
+        }
+
+        @Override
+        public Output get (int index) {
+            Objects.checkIndex(index, size);
+            return store.output(from + index);
+        }
+
+        @Override
+        public int size () {
+            return size;
+        }
+    }
+
+    private static final class Inputs extends AbstractList<Input> implements RandomAccess {
+        private final CompactStore store;
+        private final int from;
+        private final int size;
+
+        Inputs (CompactStore store, int from, int size) {
+            this.store = store;
+            this.from = from;
+            this.size = size;
+        }
+
+        @Override
+        public Input get (int index) {
+            Objects.checkIndex(index, size);
+            return store.input(from + index);
+        }
+
+        @Override
+        public int size () {
+            return size;
+        }
+    }
+}
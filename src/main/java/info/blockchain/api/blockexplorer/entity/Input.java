@@ -1,6 +1,12 @@
 package info.blockchain.api.blockexplorer.entity;
 
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import info.blockchain.api.etc.Hex;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Represents a transaction input. If the `previousOutput` object is null, this is a
@@ -9,9 +15,17 @@ import com.google.gson.JsonObject;
 public class Input {
     private Output previousOutput;
     private long sequence;
-    private String scriptSignature;
+    private byte[] scriptSignature;
 
+    /**
+     * @param scriptSignature Hex encoded script signature (nullable)
+     * @throws IllegalArgumentException If the script signature is not hex encoded
+     */
     public Input (Output previousOutput, long sequence, String scriptSignature) {
+        this(previousOutput, sequence, scriptSignature == null ? null : Hex.decode(scriptSignature));
+    }
+
+    Input (Output previousOutput, long sequence, byte[] scriptSignature) {
         this.previousOutput = previousOutput;
         this.sequence = sequence;
         this.scriptSignature = scriptSignature;
@@ -23,7 +37,57 @@ public class Input {
         }
 
         this.sequence = i.get("sequence").getAsLong();
-        this.scriptSignature = i.get("script").getAsString();
+        this.scriptSignature = Hex.decode(i.get("script").getAsString());
+    }
+
+    /**
+     * Reads an input from a JSON stream positioned at the start of the input object.
+     *
+     * @param reader JSON stream
+     * @return An instance of the {@link Input} class
+     */
+    public static Input read (JsonReader reader) throws IOException {
+        Output previousOutput = null;
+        long sequence = 0;
+        byte[] scriptSignature = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "prev_out":
+                    previousOutput = Output.read(reader, true);
+                    break;
+                case "sequence":
+                    sequence = reader.nextLong();
+                    break;
+                case "script":
+                    scriptSignature = Hex.decode(reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new Input(previousOutput, sequence, scriptSignature);
+    }
+
+    /**
+     * Writes this input in the format read by read(JsonReader).
+     *
+     * @param writer JSON stream
+     */
+    public void write (JsonWriter writer) throws IOException {
+        writer.beginObject();
+        if (previousOutput != null) {
+            writer.name("prev_out");
+            previousOutput.write(writer);
+        }
+        writer.name("sequence").value(sequence);
+        if (scriptSignature != null) {
+            writer.name("script").value(getScriptSignature());
+        }
+        writer.endObject();
     }
 
     /**
@@ -41,9 +105,16 @@ public class Input {
     }
 
     /**
-     * @return Script signature
+     * @return Script signature, hex encoded on each call
      */
     public String getScriptSignature () {
+        return scriptSignature == null ? null : Hex.encode(scriptSignature);
+    }
+
+    /**
+     * @return Script signature. The array is not copied and must not be modified.
+     */
+    public byte[] getScriptSignatureBytes () {
         return scriptSignature;
     }
 
@@ -70,14 +141,14 @@ public class Input {
             return false;
         }
         
-        return scriptSignature.equals(input.scriptSignature);
+        return Arrays.equals(scriptSignature, input.scriptSignature);
     }
 
     @Override
     public int hashCode () {
         int result = previousOutput == null ? 1 : previousOutput.hashCode();
         result = 31 * result + (int) (sequence ^ (sequence >>> 32));
-        result = 31 * result + scriptSignature.hashCode();
+        result = 31 * result + Arrays.hashCode(scriptSignature);
         return result;
     }
 }
@@ -0,0 +1,24 @@
+package info.blockchain.api.blockexplorer.entity;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Helpers for the streaming `read(JsonReader)` factories of the entity classes.
+ */
+final class JsonReaders {
+
+    private JsonReaders () {
+    }
+
+    static String nextStringOrNull (JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+}
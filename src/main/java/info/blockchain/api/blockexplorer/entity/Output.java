@@ -1,6 +1,12 @@
 package info.blockchain.api.blockexplorer.entity;
 
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import info.blockchain.api.etc.Hex;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Represents a transaction output.
@@ -10,14 +16,22 @@ public class Output {
     private long value;
     private String address;
     private long txIndex;
-    private String script;
+    private byte[] script;
     private boolean spent;
     private boolean spentToAddress;
 
+    /**
+     * @param script Hex encoded output script (nullable)
+     * @throws IllegalArgumentException If the script is not hex encoded
+     */
     public Output (int n, long value, String address, long txIndex, String script, boolean spent) {
+        this(n, value, address, txIndex, script == null ? null : Hex.decode(script), spent);
+    }
+
+    Output (int n, long value, String address, long txIndex, byte[] script, boolean spent) {
         this.n = n;
         this.value = value;
-        this.address = address;
+        this.address = AddressDictionary.intern(address);
         this.txIndex = txIndex;
         this.script = script;
         this.spent = spent;
@@ -47,7 +61,7 @@ public class Output {
           return false;
         }
         
-        return !(script != null ? !script.equals(output.script) : output.script != null);
+        return Arrays.equals(script, output.script);
 
     }
 
@@ -56,7 +70,7 @@ public class Output {
         int result = (int) (value ^ (value >>> 32));
         result = 31 * result + (int) (txIndex ^ (txIndex >>> 32));
         result = 31 * result + (int) (n ^ (n >>> 32));
-        result = 31 * result + (script != null ? script.hashCode() : 0);
+        result = 31 * result + Arrays.hashCode(script);
         return result;
     }
 
@@ -68,6 +82,81 @@ public class Output {
         this(o.get("n").getAsInt(), o.get("value").getAsLong(), o.has("addr") ? o.get("addr").getAsString() : "", o.get("tx_index").getAsLong(), o.get("script").getAsString(), spent);
     }
 
+    /**
+     * Reads an output from a JSON stream positioned at the start of the output object.
+     *
+     * @param reader JSON stream
+     * @return An instance of the {@link Output} class
+     */
+    public static Output read (JsonReader reader) throws IOException {
+        return read(reader, null);
+    }
+
+    /**
+     * Reads an output from a JSON stream positioned at the start of the output object.
+     *
+     * @param reader JSON stream
+     * @param spent  Whether the output is spent, or null to use the value of the object
+     * @return An instance of the {@link Output} class
+     */
+    public static Output read (JsonReader reader, Boolean spent) throws IOException {
+        int n = 0;
+        long value = 0;
+        String address = "";
+        long txIndex = 0;
+        byte[] script = null;
+        boolean spentField = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "n":
+                    n = reader.nextInt();
+                    break;
+                case "value":
+                    value = reader.nextLong();
+                    break;
+                case "addr":
+                    address = reader.nextString();
+                    break;
+                case "tx_index":
+                    txIndex = reader.nextLong();
+                    break;
+                case "script":
+                    script = Hex.decode(reader.nextString());
+                    break;
+                case "spent":
+                    spentField = reader.nextBoolean();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new Output(n, value, address, txIndex, script, spent != null ? spent : spentField);
+    }
+
+    /**
+     * Writes this output in the format read by read(JsonReader).
+     *
+     * @param writer JSON stream
+     */
+    public void write (JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("n").value(n);
+        writer.name("value").value(value);
+        if (address != null && !address.isEmpty()) {
+            writer.name("addr").value(address);
+        }
+        writer.name("tx_index").value(txIndex);
+        if (script != null) {
+            writer.name("script").value(getScript());
+        }
+        writer.name("spent").value(spent);
+        writer.endObject();
+    }
+
     /**
      * @return Index of the output in a transaction
      */
@@ -97,9 +186,16 @@ public class Output {
     }
 
     /**
-     * @return Output script
+     * @return Output script, hex encoded on each call
      */
     public String getScript () {
+        return script == null ? null : Hex.encode(script);
+    }
+
+    /**
+     * @return Output script. The array is not copied and must not be modified.
+     */
+    public byte[] getScriptBytes () {
         return script;
     }
 
@@ -2,7 +2,10 @@ package info.blockchain.api.blockexplorer.entity;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,6 +61,163 @@ public class Transaction {
         }
     }
 
+    /**
+     * Reads a transaction from a JSON stream positioned at the start of the transaction object.
+     *
+     * @param reader      JSON stream
+     * @param blockHeight Block height of the parent block, -1 for unconfirmed transactions
+     * @param doubleSpend Whether the transaction is a double spend
+     * @return An instance of the {@link Transaction} class
+     */
+    public static Transaction read (JsonReader reader, long blockHeight, boolean doubleSpend) throws IOException {
+        return read(reader, blockHeight, doubleSpend, null);
+    }
+
+    /**
+     * @param visitor Receives each input and output as it is parsed (nullable)
+     * @return The transaction, or null if the visitor stopped parsing
+     */
+    static Transaction read (JsonReader reader, long blockHeight, boolean doubleSpend, BlockVisitor visitor) throws IOException {
+        long blockHeightField = -1;
+        long time = 0;
+        long lockTime = 0;
+        String relayedBy = null;
+        String hash = null;
+        long index = 0;
+        int version = 0;
+        long size = 0;
+        List<Input> inputs = new ArrayList<Input>();
+        List<Output> outputs = new ArrayList<Output>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "block_height":
+                    blockHeightField = reader.nextLong();
+                    break;
+                case "time":
+                    time = reader.nextLong();
+                    break;
+                case "lock_time":
+                    lockTime = reader.nextLong();
+                    break;
+                case "relayed_by":
+                    relayedBy = JsonReaders.nextStringOrNull(reader);
+                    break;
+                case "hash":
+                    hash = reader.nextString();
+                    break;
+                case "tx_index":
+                    index = reader.nextLong();
+                    break;
+                case "ver":
+                    version = reader.nextInt();
+                    break;
+                case "size":
+                    size = reader.nextLong();
+                    break;
+                case "inputs":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Input input = Input.read(reader);
+                        if (visitor != null && !visitor.visitInput(input)) {
+                            return null;
+                        }
+                        inputs.add(input);
+                    }
+                    reader.endArray();
+                    break;
+                case "out":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Output output = Output.read(reader);
+                        if (visitor != null && !visitor.visitOutput(output)) {
+                            return null;
+                        }
+                        outputs.add(output);
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        // Transactions of a block carry their own height, which is used if the caller does not know it yet
+        if (blockHeight == -1) {
+            blockHeight = blockHeightField;
+        }
+
+        return new Transaction(doubleSpend, blockHeight, time, lockTime, relayedBy, hash, index, version, size, inputs, outputs);
+    }
+
+    /**
+     * Writes this transaction in the format read by read(JsonReader, long, boolean).
+     *
+     * @param writer JSON stream
+     */
+    public void write (JsonWriter writer) throws IOException {
+        writer.beginObject();
+        if (blockHeight != -1) {
+            writer.name("block_height").value(blockHeight);
+        }
+        writer.name("time").value(time);
+        writer.name("lock_time").value(lockTime);
+        if (relayedBy != null) {
+            writer.name("relayed_by").value(relayedBy);
+        }
+        writer.name("hash").value(hash);
+        writer.name("tx_index").value(index);
+        writer.name("ver").value(version);
+        writer.name("size").value(size);
+        writer.name("inputs").beginArray();
+        for (Input input : inputs) {
+            input.write(writer);
+        }
+        writer.endArray();
+        writer.name("out").beginArray();
+        for (Output output : outputs) {
+            output.write(writer);
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    /**
+     * Returns a copy of this transaction that stores its inputs and outputs as one array per
+     * field instead of an object per input and output, and keeps one instance of every
+     * address. Compact blocks (see {@link Block#compact()}) share these arrays between all
+     * their transactions, which uses much less memory for blocks that are kept around, e.g.
+     * in a cache. The getters return the same values, but the lists cannot be modified
+     * and create their elements on access.
+     *
+     * @return The compact transaction, or this transaction if it is compact already
+     */
+    public Transaction compact () {
+        return compact(false);
+    }
+
+    /**
+     * Like compact(), optionally keeping Base58Check addresses as their version byte and
+     * 20 byte hash160 rather than as strings. getAddress then encodes them on each call.
+     *
+     * @param hash160Addresses Whether to keep addresses as hash160
+     * @return The compact transaction, or this transaction if it is compact already
+     */
+    public Transaction compact (boolean hash160Addresses) {
+        if ((inputs == null || CompactStore.isCompact(inputs)) && (outputs == null || CompactStore.isCompact(outputs))) {
+            return this;
+        }
+        CompactStore.Builder builder = new CompactStore.Builder(hash160Addresses);
+        builder.add(this);
+        return builder.build().get(0);
+    }
+
+    void setBlockHeight (long blockHeight) {
+        this.blockHeight = blockHeight;
+    }
+
     @Override
     public boolean equals (Object o) {
         if (this == o) {
@@ -0,0 +1,117 @@
+package info.blockchain.api.etc;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Validates lists of Base58Check addresses in bulk, e.g. before passing customer-supplied
+ * addresses to getBalance or getMultiAddress. Invalid addresses are marked in the result
+ * instead of throwing, and large lists are validated on all cores:
+ * <pre>
+ * ValidatedAddresses result = AddressValidator.validate(addresses);
+ * if (result.getValidCount() &lt; result.size()) {
+ *     BitSet invalid = result.getValid();
+ *     invalid.flip(0, result.size());
+ *     ...
+ * }
+ * List&lt;String&gt; unique = result.getDistinctValidAddresses();
+ * </pre>
+ */
+public final class AddressValidator {
+    /**
+     * Lists with at least this many addresses are validated in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 8192;
+
+    // A multiple of 64, so the chunks validated in parallel never share a word of the bitset
+    private static final int CHUNK_SIZE = 1024;
+    // Version byte, hash160 and checksum
+    private static final int DECODED_LENGTH = 1 + ValidatedAddresses.HASH160_LENGTH + 4;
+    // 25 bytes encode to at most 35 characters, and to at least 25 if they are all zero
+    private static final int MIN_LENGTH = 25;
+    private static final int MAX_LENGTH = 35;
+
+    private AddressValidator () {
+    }
+
+    /**
+     * @param addresses Addresses to validate. Surrounding whitespace is ignored and null
+     *                  elements are invalid.
+     * @return The validity, version and hash160 of every address, in the order of the list
+     */
+    public static ValidatedAddresses validate (List<String> addresses) {
+        String[] normalized = addresses.toArray(new String[0]);
+        int size = normalized.length;
+        long[] valid = new long[(size + 63) / 64];
+        byte[] versions = new byte[size];
+        byte[] hash160s = new byte[size * ValidatedAddresses.HASH160_LENGTH];
+
+        IntStream chunks = IntStream.range(0, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        if (size >= PARALLEL_THRESHOLD) {
+            chunks = chunks.parallel();
+        }
+        chunks.forEach(chunk -> validate(normalized, chunk * CHUNK_SIZE, Math.min(size, (chunk + 1) * CHUNK_SIZE),
+                valid, versions, hash160s));
+        return new ValidatedAddresses(normalized, BitSet.valueOf(valid), versions, hash160s);
+    }
+
+    /**
+     * @param addresses Addresses to validate, see {@link #validate(List)}
+     * @return The validity, version and hash160 of every address, in the order of the stream
+     */
+    public static ValidatedAddresses validate (Stream<String> addresses) {
+        return validate(addresses.collect(Collectors.toList()));
+    }
+
+    /**
+     * @return Whether the address is a valid Base58Check address. Surrounding whitespace is
+     * not allowed.
+     */
+    public static boolean isValid (String address) {
+        return address != null && decode(address, new byte[MAX_LENGTH]);
+    }
+
+    /**
+     * Decodes a Base58Check address without throwing if it is invalid.
+     *
+     * @param address      Address to decode
+     * @param output       Buffer receiving the version byte and hash160 (21 bytes)
+     * @param outputOffset Index in the buffer of the version byte
+     * @return Whether the address is valid and was decoded
+     */
+    public static boolean decode (String address, byte[] output, int outputOffset) {
+        byte[] decoded = new byte[MAX_LENGTH];
+        if (address == null || !decode(address, decoded)) {
+            return false;
+        }
+        System.arraycopy(decoded, 0, output, outputOffset, 1 + ValidatedAddresses.HASH160_LENGTH);
+        return true;
+    }
+
+    private static void validate (String[] addresses, int from, int to, long[] valid, byte[] versions, byte[] hash160s) {
+        byte[] decoded = new byte[MAX_LENGTH];
+        for (int i = from; i < to; i++) {
+            String address = addresses[i];
+            if (address == null) {
+                continue;
+            }
+            address = address.trim();
+            addresses[i] = address;
+            if (decode(address, decoded)) {
+                valid[i >>> 6] |= 1L << i;
+                versions[i] = decoded[0];
+                System.arraycopy(decoded, 1, hash160s, i * ValidatedAddresses.HASH160_LENGTH, ValidatedAddresses.HASH160_LENGTH);
+            }
+        }
+    }
+
+    private static boolean decode (String address, byte[] decoded) {
+        if (address.length() < MIN_LENGTH || address.length() > MAX_LENGTH) {
+            return false;
+        }
+        return Base58.tryDecode(address, decoded, 0) == DECODED_LENGTH && Base58.hasValidChecksum(decoded, DECODED_LENGTH);
+    }
+}
@@ -17,6 +17,7 @@ package info.blockchain.api.etc;
  */
 
 import java.math.BigInteger;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
@@ -37,6 +38,9 @@ import java.util.Arrays;
  * </ul>
  * <p>
  * However, note that the encoding/decoding runs in O(n&sup2;) time, so it is not useful for large data.
+ * The conversion works on 32-bit limbs rather than single digits, and all methods reuse buffers and
+ * a SHA-256 digest kept per thread, so encoding and decoding addresses in bulk allocates little
+ * more than the results. The overloads taking an output buffer allocate nothing.
  * <p>
  * The basic idea of the encoding is to treat the data bytes as a large number represented using
  * base-256 digits, convert the number to be represented using base-58 digits, preserve the exact
@@ -47,6 +51,11 @@ public class Base58 {
     public static final char[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
     private static final char ENCODED_ZERO = ALPHABET[0];
     private static final int[] INDEXES = new int[128];
+    // Powers of 58 up to 58^5, the largest that fits in 30 bits
+    private static final long[] POWERS = {1, 58, 58 * 58, 58 * 58 * 58, 58 * 58 * 58 * 58, 58L * 58 * 58 * 58 * 58};
+    private static final long LIMB_BASE = POWERS[5];
+
+    private static final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
 
     static {
         Arrays.fill(INDEXES, -1);
@@ -55,6 +64,15 @@ public class Base58 {
         }
     }
 
+    /**
+     * @param length Number of bytes to encode
+     * @return The largest number of characters encoding the given number of bytes can produce
+     */
+    public static int maxEncodedLength (int length) {
+        // log(256) / log(58) is just below 1.366
+        return length * 137 / 100 + 1;
+    }
+
     /**
      * Encodes the given bytes as a base58 string (no checksum is appended).
      *
@@ -62,33 +80,88 @@ public class Base58 {
      * @return the base58-encoded string
      */
     public static String encode (byte[] input) {
-        if (input.length == 0) {
-            return "";
-        }
+        char[] chars = scratch.get().chars(maxEncodedLength(input.length));
+        return new String(chars, 0, encode(input, 0, input.length, chars, 0));
+    }
+
+    /**
+     * Encodes the given bytes as base58 characters into a caller-supplied buffer.
+     *
+     * @param input        the bytes to encode
+     * @param offset       index of the first byte to encode
+     * @param length       number of bytes to encode
+     * @param output       the buffer to write to, with room for maxEncodedLength(length) characters
+     * @param outputOffset index in the buffer of the first character written
+     * @return the number of characters written
+     * @throws IndexOutOfBoundsException if the encoded characters do not fit in the buffer
+     */
+    public static int encode (byte[] input, int offset, int length, char[] output, int outputOffset) {
+        int end = offset + length;
         // Count leading zeros.
         int zeros = 0;
-        while (zeros < input.length && input[zeros] == 0) {
+        while (zeros < length && input[offset + zeros] == 0) {
             ++zeros;
         }
-        // Convert base-256 digits to base-58 digits (plus conversion to ASCII characters)
-        input = Arrays.copyOf(input, input.length); // since we modify it in-place
-        char[] encoded = new char[input.length * 2]; // upper bound
-        int outputStart = encoded.length;
-        for (int inputStart = zeros; inputStart < input.length; ) {
-            encoded[--outputStart] = ALPHABET[divmod(input, inputStart, 256, 58)];
-            if (input[inputStart] == 0) {
-                ++inputStart; // optimization - skip leading zeros
+        // Convert base-256 digits to base-58^5 limbs (least significant first), taking up to
+        // 4 input bytes at a time
+        int[] limbs = scratch.get().limbs(length * 3 / 10 + 2);
+        int used = 0;
+        int chunk = (length - zeros) % 4 == 0 ? 4 : (length - zeros) % 4;
+        for (int i = offset + zeros; i < end; chunk = 4) {
+            long carry = 0;
+            for (int k = 0; k < chunk; k++) {
+                carry = carry << 8 | (input[i++] & 0xFF);
+            }
+            int shift = chunk * 8;
+            for (int j = 0; j < used; j++) {
+                long temp = ((long) limbs[j] << shift) + carry;
+                limbs[j] = (int) (temp % LIMB_BASE);
+                carry = temp / LIMB_BASE;
+            }
+            while (carry > 0) {
+                limbs[used++] = (int) (carry % LIMB_BASE);
+                carry /= LIMB_BASE;
             }
         }
-        // Preserve exactly as many leading encoded zeros in output as there were leading zeros in input.
-        while (outputStart < encoded.length && encoded[outputStart] == ENCODED_ZERO) {
-            ++outputStart;
+        // Every limb is 5 base-58 digits, except the most significant one which has no leading zeros.
+        int topDigits = 0;
+        for (int top = used == 0 ? 0 : limbs[used - 1]; top > 0; top /= 58) {
+            ++topDigits;
         }
-        while (--zeros >= 0) {
-            encoded[--outputStart] = ENCODED_ZERO;
+        int encodedLength = zeros + (used == 0 ? 0 : topDigits + 5 * (used - 1));
+        if (outputOffset < 0 || output.length - outputOffset < encodedLength) {
+            throw new IndexOutOfBoundsException("Output buffer too small for " + encodedLength + " characters");
         }
-        // Return encoded string (including encoded leading zeros).
-        return new String(encoded, outputStart, encoded.length - outputStart);
+        int position = outputOffset + encodedLength;
+        for (int j = 0; j < used; j++) {
+            int limb = limbs[j];
+            for (int k = j == used - 1 ? topDigits : 5; k > 0; k--) {
+                output[--position] = ALPHABET[limb % 58];
+                limb /= 58;
+            }
+        }
+        // Preserve exactly as many leading encoded zeros in output as there were leading zeros in input.
+        Arrays.fill(output, outputOffset, outputOffset + zeros, ENCODED_ZERO);
+        return encodedLength;
+    }
+
+    /**
+     * Encodes the given bytes followed by the first 4 bytes of their double SHA-256 hash as a
+     * base58 string, the inverse of decodeChecked.
+     *
+     * @param input  the bytes to encode
+     * @param offset index of the first byte to encode
+     * @param length number of bytes to encode
+     * @return the base58-encoded string including the checksum
+     */
+    public static String encodeChecked (byte[] input, int offset, int length) {
+        Scratch scratch = Base58.scratch.get();
+        byte[] bytes = scratch.bytes(length + 4);
+        System.arraycopy(input, offset, bytes, 0, length);
+        hashTwice(input, offset, length, scratch.hash, 0);
+        System.arraycopy(scratch.hash, 0, bytes, length, 4);
+        char[] chars = scratch.chars(maxEncodedLength(length + 4));
+        return new String(chars, 0, encode(bytes, 0, length + 4, chars, 0));
     }
 
     /**
@@ -99,39 +172,22 @@ public class Base58 {
      * @throws ParseException if the given string is not a valid base58 string
      */
     public static byte[] decode (String input) throws ParseException {
-        if (input.length() == 0) {
-            return new byte[0];
-        }
-        // Convert the base58-encoded ASCII chars to a base58 byte sequence (base58 digits).
-        byte[] input58 = new byte[input.length()];
-        for (int i = 0; i < input.length(); ++i) {
-            char c = input.charAt(i);
-            int digit = c < 128 ? INDEXES[c] : -1;
-            if (digit < 0) {
-                throw new ParseException("Illegal character " + c + " at position " + i, i);
-            }
-            input58[i] = (byte) digit;
-        }
-        // Count leading zeros.
-        int zeros = 0;
-        while (zeros < input58.length && input58[zeros] == 0) {
-            ++zeros;
-        }
-        // Convert base-58 digits to base-256 digits.
-        byte[] decoded = new byte[input.length()];
-        int outputStart = decoded.length;
-        for (int inputStart = zeros; inputStart < input58.length; ) {
-            decoded[--outputStart] = divmod(input58, inputStart, 58, 256);
-            if (input58[inputStart] == 0) {
-                ++inputStart; // optimization - skip leading zeros
-            }
-        }
-        // Ignore extra leading zeroes that were added during the calculation.
-        while (outputStart < decoded.length && decoded[outputStart] == 0) {
-            ++outputStart;
-        }
-        // Return decoded data (including original number of leading zeros).
-        return Arrays.copyOfRange(decoded, outputStart - zeros, decoded.length);
+        byte[] bytes = scratch.get().bytes(input.length());
+        return Arrays.copyOf(bytes, checkDecoded(input, tryDecode(input, bytes, 0)));
+    }
+
+    /**
+     * Decodes the given base58 string into a caller-supplied buffer.
+     *
+     * @param input        the base58-encoded characters to decode
+     * @param output       the buffer to write to, with room for input.length() bytes
+     * @param outputOffset index in the buffer of the first byte written
+     * @return the number of bytes written
+     * @throws ParseException            if the given string is not a valid base58 string
+     * @throws IndexOutOfBoundsException if the decoded bytes do not fit in the buffer
+     */
+    public static int decode (CharSequence input, byte[] output, int outputOffset) throws ParseException {
+        return checkDecoded(input, tryDecode(input, output, outputOffset));
     }
 
     public static BigInteger decodeToBigInteger (String input) throws ParseException {
@@ -147,52 +203,179 @@ public class Base58 {
      * @throws ParseException if the input is not base 58 or the checksum does not validate.
      */
     public static byte[] decodeChecked (String input) throws ParseException {
-        byte[] decoded = decode(input);
-        if (decoded.length < 4) {
+        byte[] bytes = scratch.get().bytes(input.length());
+        return Arrays.copyOf(bytes, checkChecksum(bytes, checkDecoded(input, tryDecode(input, bytes, 0))));
+    }
+
+    /**
+     * Decodes and verifies a base58 string with checksum into a caller-supplied buffer. The
+     * checksum is not written.
+     *
+     * @param input        the base58-encoded characters to decode (which should include the checksum)
+     * @param output       the buffer to write to, with room for input.length() - 4 bytes
+     * @param outputOffset index in the buffer of the first byte written
+     * @return the number of data bytes written
+     * @throws ParseException            if the input is not base 58 or the checksum does not validate.
+     * @throws IndexOutOfBoundsException if the decoded bytes do not fit in the buffer
+     */
+    public static int decodeChecked (CharSequence input, byte[] output, int outputOffset) throws ParseException {
+        byte[] bytes = scratch.get().bytes(input.length());
+        int length = checkChecksum(bytes, checkDecoded(input, tryDecode(input, bytes, 0)));
+        System.arraycopy(bytes, 0, output, outputOffset, length);
+        return length;
+    }
+
+    /**
+     * Decodes base58 characters without throwing on invalid input.
+     *
+     * @return the number of bytes written, or -1 - index of the first illegal character
+     */
+    static int tryDecode (CharSequence input, byte[] output, int outputOffset) {
+        int length = input.length();
+        // Count leading zeros.
+        int zeros = 0;
+        while (zeros < length && input.charAt(zeros) == ENCODED_ZERO) {
+            ++zeros;
+        }
+        // Convert base-58 digits to base-2^32 limbs (least significant first), taking up to
+        // 5 digits at a time
+        int[] limbs = scratch.get().limbs(length / 5 + 2);
+        int used = 0;
+        int chunk = (length - zeros) % 5 == 0 ? 5 : (length - zeros) % 5;
+        for (int i = zeros; i < length; chunk = 5) {
+            long carry = 0;
+            for (int k = 0; k < chunk; k++, i++) {
+                char c = input.charAt(i);
+                int digit = c < 128 ? INDEXES[c] : -1;
+                if (digit < 0) {
+                    return -1 - i;
+                }
+                carry = carry * 58 + digit;
+            }
+            long multiplier = POWERS[chunk];
+            for (int j = 0; j < used; j++) {
+                long temp = (limbs[j] & 0xFFFFFFFFL) * multiplier + carry;
+                limbs[j] = (int) temp;
+                carry = temp >>> 32;
+            }
+            if (carry > 0) {
+                limbs[used++] = (int) carry;
+            }
+        }
+        // Every limb is 4 bytes, except the most significant one which has no leading zeros.
+        int topBytes = used == 0 ? 0 : (32 - Integer.numberOfLeadingZeros(limbs[used - 1]) + 7) / 8;
+        int decodedLength = zeros + (used == 0 ? 0 : topBytes + 4 * (used - 1));
+        if (outputOffset < 0 || output.length - outputOffset < decodedLength) {
+            throw new IndexOutOfBoundsException("Output buffer too small for " + decodedLength + " bytes");
+        }
+        int position = outputOffset + decodedLength;
+        for (int j = 0; j < used; j++) {
+            int limb = limbs[j];
+            for (int k = j == used - 1 ? topBytes : 4; k > 0; k--) {
+                output[--position] = (byte) limb;
+                limb >>>= 8;
+            }
+        }
+        // Return decoded data (including original number of leading zeros).
+        Arrays.fill(output, outputOffset, outputOffset + zeros, (byte) 0);
+        return decodedLength;
+    }
+
+    /**
+     * @param data   decoded data followed by its checksum
+     * @param length number of decoded bytes
+     * @return whether the last 4 bytes are the checksum of the others
+     */
+    static boolean hasValidChecksum (byte[] data, int length) {
+        if (length < 4) {
+            return false;
+        }
+        byte[] hash = scratch.get().hash;
+        hashTwice(data, 0, length - 4, hash, 0);
+        for (int i = 0; i < 4; i++) {
+            if (hash[i] != data[length - 4 + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int checkDecoded (CharSequence input, int decoded) throws ParseException {
+        if (decoded < 0) {
+            int position = -1 - decoded;
+            throw new ParseException("Illegal character " + input.charAt(position) + " at position " + position, position);
+        }
+        return decoded;
+    }
+
+    private static int checkChecksum (byte[] data, int length) throws ParseException {
+        if (length < 4) {
             throw new ParseException("Input too short", 0);
         }
-        byte[] data = Arrays.copyOfRange(decoded, 0, decoded.length - 4);
-        byte[] checksum = Arrays.copyOfRange(decoded, decoded.length - 4, decoded.length);
-        byte[] actualChecksum = Arrays.copyOfRange(hashTwice(data), 0, 4);
-        if (!Arrays.equals(checksum, actualChecksum)) {
+        if (!hasValidChecksum(data, length)) {
             throw new ParseException("Checksum does not validate", 0);
         }
-        return data;
+        return length - 4;
+    }
+
+    public static byte[] hashTwice (byte[] input) {
+        byte[] hash = new byte[32];
+        hashTwice(input, 0, input.length, hash, 0);
+        return hash;
     }
 
     /**
-     * Divides a number, represented as an array of bytes each containing a single digit
-     * in the specified base, by the given divisor. The given number is modified in-place
-     * to contain the quotient, and the return value is the remainder.
+     * Writes the double SHA-256 hash of the given bytes into a caller-supplied buffer, using a
+     * digest kept per thread.
      *
-     * @param number     the number to divide
-     * @param firstDigit the index within the array of the first non-zero digit
-     *                   (this is used for optimization by skipping the leading zeros)
-     * @param base       the base in which the number's digits are represented (up to 256)
-     * @param divisor    the number to divide by (up to 256)
-     * @return the remainder of the division operation
+     * @param input        the bytes to hash
+     * @param offset       index of the first byte to hash
+     * @param length       number of bytes to hash
+     * @param output       the buffer to write the 32 byte hash to
+     * @param outputOffset index in the buffer of the first byte written
      */
-    private static byte divmod (byte[] number, int firstDigit, int base, int divisor) {
-        // this is just long division which accounts for the base of the input digits
-        int remainder = 0;
-        for (int i = firstDigit; i < number.length; i++) {
-            int digit = (int) number[i] & 0xFF;
-            int temp = remainder * base + digit;
-            number[i] = (byte) (temp / divisor);
-            remainder = temp % divisor;
+    public static void hashTwice (byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        Scratch scratch = Base58.scratch.get();
+        MessageDigest digest = scratch.digest;
+        try {
+            digest.update(input, offset, length);
+            digest.digest(scratch.hash, 0, 32);
+            digest.update(scratch.hash, 0, 32);
+            digest.digest(output, outputOffset, 32);
+        } catch (DigestException e) {
+            digest.reset();
+            throw new IndexOutOfBoundsException("Output buffer too small for 32 bytes");
         }
-        return (byte) remainder;
     }
 
-    public static byte[] hashTwice (byte[] input) {
-        MessageDigest digest = null;
-        try {
-            digest = MessageDigest.getInstance("SHA-256");
-            digest.update(input, 0, input.length);
-            return digest.digest(digest.digest());
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+    /**
+     * Buffers reused by all conversions on the same thread.
+     */
+    private static final class Scratch {
+        private final MessageDigest digest;
+        private final byte[] hash = new byte[32];
+        private int[] limbs = new int[32];
+        private char[] chars = new char[128];
+        private byte[] bytes = new byte[128];
+
+        Scratch () {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
         }
 
+        int[] limbs (int length) {
+            return limbs.length >= length ? limbs : (limbs = new int[length]);
+        }
+
+        char[] chars (int length) {
+            return chars.length >= length ? chars : (chars = new char[length]);
+        }
+
+        byte[] bytes (int length) {
+            return bytes.length >= length ? bytes : (bytes = new byte[length]);
+        }
     }
-}
\ No newline at end of file
+}
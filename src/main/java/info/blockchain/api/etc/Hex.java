@@ -0,0 +1,65 @@
+package info.blockchain.api.etc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Converts between bytes and lowercase hexadecimal strings, e.g. scripts in API responses.
+ */
+public final class Hex {
+    private static final byte[] DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < 16; i++) {
+            VALUES[Character.forDigit(i, 16)] = i;
+            VALUES[Character.toUpperCase(Character.forDigit(i, 16))] = i;
+        }
+    }
+
+    private Hex () {
+    }
+
+    /**
+     * @param bytes the bytes to encode
+     * @return the bytes as a lowercase hexadecimal string
+     */
+    public static String encode (byte[] bytes) {
+        byte[] chars = new byte[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = DIGITS[bytes[i] & 0xF];
+        }
+        // Latin-1 bytes are used as they are by compact strings
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @param hex a hexadecimal string of either case
+     * @return the decoded bytes
+     * @throws IllegalArgumentException if the string has an odd length or a non-hexadecimal character
+     */
+    public static byte[] decode (CharSequence hex) {
+        int length = hex.length();
+        if (length % 2 != 0) {
+            throw new IllegalArgumentException("Hex string has odd length " + length);
+        }
+        byte[] bytes = new byte[length / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = value(hex, 2 * i);
+            int low = value(hex, 2 * i + 1);
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    private static int value (CharSequence hex, int index) {
+        char c = hex.charAt(index);
+        int value = c < 128 ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Illegal hex character " + c + " at position " + index);
+        }
+        return value;
+    }
+}
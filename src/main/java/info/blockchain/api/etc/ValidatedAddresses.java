@@ -0,0 +1,148 @@
+package info.blockchain.api.etc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The result of {@link AddressValidator#validate(List)}: whether each address is valid and,
+ * for valid ones, the version byte and hash160 it encodes. Hash160s are kept in one array
+ * rather than an object per address.
+ */
+public class ValidatedAddresses {
+    public static final int HASH160_LENGTH = 20;
+
+    /**
+     * The kind of address given by the version byte.
+     */
+    public enum Type {
+        P2PKH, P2SH, TESTNET_P2PKH, TESTNET_P2SH, UNKNOWN;
+
+        /**
+         * @param version Version byte of a Base58Check address
+         * @return The type of address the version byte stands for
+         */
+        public static Type of (int version) {
+            switch (version & 0xFF) {
+                case 0x00:
+                    return P2PKH;
+                case 0x05:
+                    return P2SH;
+                case 0x6F:
+                    return TESTNET_P2PKH;
+                case 0xC4:
+                    return TESTNET_P2SH;
+                default:
+                    return UNKNOWN;
+            }
+        }
+    }
+
+    private final String[] addresses;
+    private final BitSet valid;
+    private final byte[] versions;
+    private final byte[] hash160s;
+
+    ValidatedAddresses (String[] addresses, BitSet valid, byte[] versions, byte[] hash160s) {
+        this.addresses = addresses;
+        this.valid = valid;
+        this.versions = versions;
+        this.hash160s = hash160s;
+    }
+
+    /**
+     * @return Number of addresses validated
+     */
+    public int size () {
+        return addresses.length;
+    }
+
+    /**
+     * @return Number of valid addresses
+     */
+    public int getValidCount () {
+        return valid.cardinality();
+    }
+
+    /**
+     * @return A bitset with the bit of every valid address set
+     */
+    public BitSet getValid () {
+        return (BitSet) valid.clone();
+    }
+
+    public boolean isValid (int index) {
+        checkIndex(index);
+        return valid.get(index);
+    }
+
+    /**
+     * @return The address without surrounding whitespace
+     */
+    public String getAddress (int index) {
+        checkIndex(index);
+        return addresses[index];
+    }
+
+    /**
+     * @return The version byte of the address (0 to 255), -1 if the address is invalid
+     */
+    public int getVersion (int index) {
+        return isValid(index) ? versions[index] & 0xFF : -1;
+    }
+
+    /**
+     * @return The type of the address, null if it is invalid
+     */
+    public Type getType (int index) {
+        return isValid(index) ? Type.of(versions[index]) : null;
+    }
+
+    /**
+     * @return The hash160 the address encodes, null if it is invalid
+     */
+    public byte[] getHash160 (int index) {
+        if (!isValid(index)) {
+            return null;
+        }
+        int offset = index * HASH160_LENGTH;
+        return Arrays.copyOfRange(hash160s, offset, offset + HASH160_LENGTH);
+    }
+
+    /**
+     * Copies the hash160 the address encodes without allocating.
+     *
+     * @return Whether the address is valid and its hash160 was copied
+     */
+    public boolean getHash160 (int index, byte[] output, int outputOffset) {
+        if (!isValid(index)) {
+            return false;
+        }
+        System.arraycopy(hash160s, index * HASH160_LENGTH, output, outputOffset, HASH160_LENGTH);
+        return true;
+    }
+
+    /**
+     * @return The valid addresses without surrounding whitespace and duplicates, in the
+     * order they were first given
+     */
+    public List<String> getDistinctValidAddresses () {
+        List<String> distinct = new ArrayList<String>(valid.cardinality());
+        Set<String> seen = new HashSet<String>();
+        for (int i = valid.nextSetBit(0); i >= 0; i = valid.nextSetBit(i + 1)) {
+            if (seen.add(addresses[i])) {
+                distinct.add(addresses[i]);
+            }
+        }
+        return distinct;
+    }
+
+    private void checkIndex (int index) {
+        if (index < 0 || index >= addresses.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + addresses.length + " addresses");
+        }
+    }
+}
@@ -2,34 +2,49 @@ package info.blockchain.api.exchangerates;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import info.blockchain.api.APIException;
+import info.blockchain.api.AsyncExecutor;
 import info.blockchain.api.HttpClient;
+import info.blockchain.api.ResponseBodies;
+import info.blockchain.api.SingleFlight;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 /**
  * This class reflects the functionality documented
  * at https://blockchain.info/api/exchange_rates_api. It allows users to fetch the latest
  * ticker data and convert amounts between BTC and fiat currencies.
+ * <p>
+ * Concurrent calls to getTicker (and getTickerAsync) share a single request, see
+ * {@link SingleFlight}.
  */
 public class ExchangeRates {
+    private static final SingleFlight inFlight = new SingleFlight();
 
     private final String apiCode;
+    private final AsyncExecutor executor;
 
     public ExchangeRates () {
         this(null);
     }
 
     public ExchangeRates (String apiCode) {
+        this(apiCode, AsyncExecutor.getDefault());
+    }
+
+    /**
+     * @param apiCode  Blockchain.info API code (optional, nullable)
+     * @param executor Executor running the `*Async` methods
+     */
+    public ExchangeRates (String apiCode, AsyncExecutor executor) {
         this.apiCode = apiCode;
+        this.executor = executor;
     }
 
     /**
@@ -40,23 +55,8 @@ public class ExchangeRates {
      * @throws APIException If the server returns an error
      */
     public Map<String, Currency> getTicker () throws APIException, IOException {
-        Map<String, String> params = new HashMap<String, String>();
-        if (apiCode != null) {
-            params.put("api_code", apiCode);
-        }
-
-        String response = HttpClient.getInstance().get("ticker", params);
-        JsonObject ticker = new JsonParser().parse(response).getAsJsonObject();
-
-        Map<String, Currency> resultMap = new HashMap<String, Currency>();
-        for (Entry<String, JsonElement> ccyKVP : ticker.entrySet()) {
-            JsonObject ccy = ccyKVP.getValue().getAsJsonObject();
-            Currency currency = new Currency(ccy.get("buy").getAsDouble(), ccy.get("sell").getAsDouble(), ccy.get("last").getAsDouble(), ccy.get("15m").getAsDouble(), ccy.get("symbol").getAsString());
-
-            resultMap.put(ccyKVP.getKey(), currency);
-        }
-
-        return resultMap;
+        Map<String, String> params = buildTickerRequest();
+        return inFlight.call("ticker", params, () -> HttpClient.getInstance().get("ticker", params, ExchangeRates::readTicker));
     }
 
     /**
@@ -67,15 +67,8 @@ public class ExchangeRates {
      * @throws APIException If the server returns an error
      */
     public Future<Map<String, Currency>> getTickerAsync () throws APIException, IOException {
-        CompletableFuture<Map<String, Currency>> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getTicker());
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        Map<String, String> params = buildTickerRequest();
+        return inFlight.callAsync("ticker", params, () -> HttpClient.getAsync(executor, "ticker", params, ExchangeRates::readTicker));
     }
 
     /**
@@ -87,15 +80,7 @@ public class ExchangeRates {
      * @throws APIException If the server returns an error
      */
     public BigDecimal toBTC (String currency, BigDecimal value) throws APIException, IOException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put("currency", currency);
-        params.put("value", String.valueOf(value));
-        if (apiCode != null) {
-            params.put("api_code", apiCode);
-        }
-
-        String response = HttpClient.getInstance().get("tobtc", params);
-        return new BigDecimal(response);
+        return HttpClient.getInstance().get("tobtc", buildToBTCRequest(currency, value), ExchangeRates::readDecimal);
     }
 
     /**
@@ -107,15 +92,7 @@ public class ExchangeRates {
      * @throws APIException If the server returns an error
      */
     public Future<BigDecimal> toBTCAsync (String currency, BigDecimal value) throws APIException, IOException {
-        CompletableFuture<BigDecimal> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(toBTC(currency, value));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return HttpClient.getAsync(executor, "tobtc", buildToBTCRequest(currency, value), ExchangeRates::readDecimal);
     }
 
     /**
@@ -127,15 +104,7 @@ public class ExchangeRates {
      * @throws APIException If the server returns an error
      */
     public BigDecimal toFiat (String currency, BigDecimal value) throws APIException, IOException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put("currency", currency);
-        params.put("value", String.valueOf(value.multiply(BigDecimal.valueOf(100000000L)))); // The endpoint is expecting satoshi
-        if (apiCode != null) {
-            params.put("api_code", apiCode);
-        }
-
-        String response = HttpClient.getInstance().get("frombtc", params);
-        return new BigDecimal(response);
+        return HttpClient.getInstance().get("frombtc", buildToFiatRequest(currency, value), ExchangeRates::readDecimal);
     }
 
     /**
@@ -147,14 +116,55 @@ public class ExchangeRates {
      * @throws APIException If the server returns an error
      */
     public Future<BigDecimal> toFiatAsync (String currency, BigDecimal value) throws APIException, IOException {
-        CompletableFuture<BigDecimal> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(toFiat(currency, value));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return HttpClient.getAsync(executor, "frombtc", buildToFiatRequest(currency, value), ExchangeRates::readDecimal);
+    }
+
+    private Map<String, String> buildTickerRequest () {
+        Map<String, String> params = new HashMap<String, String>();
+        if (apiCode != null) {
+            params.put("api_code", apiCode);
+        }
+
+        return params;
+    }
+
+    private Map<String, String> buildToBTCRequest (String currency, BigDecimal value) {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("currency", currency);
+        params.put("value", String.valueOf(value));
+        if (apiCode != null) {
+            params.put("api_code", apiCode);
+        }
+
+        return params;
+    }
+
+    private Map<String, String> buildToFiatRequest (String currency, BigDecimal value) {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("currency", currency);
+        params.put("value", String.valueOf(value.multiply(BigDecimal.valueOf(100000000L)))); // The endpoint is expecting satoshi
+        if (apiCode != null) {
+            params.put("api_code", apiCode);
+        }
+
+        return params;
+    }
+
+    private static Map<String, Currency> readTicker (InputStream body) {
+        JsonObject ticker = ResponseBodies.readJson(body).getAsJsonObject();
+
+        Map<String, Currency> resultMap = new HashMap<String, Currency>();
+        for (Entry<String, JsonElement> ccyKVP : ticker.entrySet()) {
+            JsonObject ccy = ccyKVP.getValue().getAsJsonObject();
+            Currency currency = new Currency(ccy.get("buy").getAsDouble(), ccy.get("sell").getAsDouble(), ccy.get("last").getAsDouble(), ccy.get("15m").getAsDouble(), ccy.get("symbol").getAsString());
+
+            resultMap.put(ccyKVP.getKey(), currency);
+        }
+
+        return resultMap;
+    }
+
+    private static BigDecimal readDecimal (InputStream body) throws IOException {
+        return new BigDecimal(ResponseBodies.readString(body).trim());
     }
 }
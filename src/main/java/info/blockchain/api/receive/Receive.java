@@ -1,15 +1,15 @@
 package info.blockchain.api.receive;
 
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import info.blockchain.api.APIException;
+import info.blockchain.api.AsyncExecutor;
 import info.blockchain.api.HttpClient;
+import info.blockchain.api.ResponseBodies;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 /**
@@ -19,13 +19,25 @@ import java.util.concurrent.Future;
  * Upon receiving a payment on this address, the merchant will be notified using the callback URL.
  */
 public class Receive {
+    private static final String BASE_URL = "https://api.blockchain.info/";
+
     private final String apiCode;
+    private final AsyncExecutor executor;
 
     /**
      * @param apiCode     Blockchain.info API code for the receive-payments v2 API (different from normal API key)
      */
     public Receive (String apiCode) {
+        this(apiCode, AsyncExecutor.getDefault());
+    }
+
+    /**
+     * @param apiCode     Blockchain.info API code for the receive-payments v2 API (different from normal API key)
+     * @param executor    Executor running the `*Async` methods
+     */
+    public Receive (String apiCode, AsyncExecutor executor) {
         this.apiCode = apiCode;
+        this.executor = executor;
     }
 
     /**
@@ -37,16 +49,7 @@ public class Receive {
      * @throws APIException If the server returns an error
      */
     public ReceiveResponse receive (String xPUB, String callbackUrl) throws APIException, IOException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put("xpub", xPUB);
-        params.put("callback", callbackUrl);
-        params.put("key", apiCode);
-
-        String response = HttpClient.getInstance().get("https://api.blockchain.info/", "v2/receive", params);
-        JsonParser parser = new JsonParser();
-        JsonObject obj = parser.parse(response).getAsJsonObject();
-
-        return new ReceiveResponse(obj.get("index").getAsInt(), obj.get("address").getAsString(), obj.get("callback").getAsString());
+        return HttpClient.getInstance().get(BASE_URL, "v2/receive", buildReceiveRequest(xPUB, callbackUrl), Receive::readReceiveResponse);
     }
 
     /**
@@ -58,15 +61,7 @@ public class Receive {
      * @throws APIException If the server returns an error
      */
     public Future<ReceiveResponse> receiveAsync (String xPUB, String callbackUrl) throws APIException, IOException {
-        CompletableFuture<ReceiveResponse> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(receive(xPUB, callbackUrl));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        } );
-        return completableFuture;
+        return HttpClient.getAsync(executor, BASE_URL, "v2/receive", buildReceiveRequest(xPUB, callbackUrl), Receive::readReceiveResponse);
     }
 
     /**
@@ -77,14 +72,7 @@ public class Receive {
      * @throws APIException If the server returns an error
      */
     public int checkGap (String xPUB) throws APIException, IOException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put("xpub", xPUB);
-        params.put("key", apiCode);
-
-        String response = HttpClient.getInstance().get("https://api.blockchain.info/", "v2/receive/checkgap", params);
-        JsonObject obj = new JsonParser().parse(response).getAsJsonObject();
-
-        return obj.get("gap").getAsInt();
+        return HttpClient.getInstance().get(BASE_URL, "v2/receive/checkgap", buildCheckGapRequest(xPUB), Receive::readGap);
     }
 
     /**
@@ -95,15 +83,7 @@ public class Receive {
      * @throws APIException If the server returns an error
      */
     public Future<Integer> checkGapAsync (String xPUB) throws APIException, IOException {
-        CompletableFuture<Integer> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(checkGap(xPUB));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        } );
-        return completableFuture;
+        return HttpClient.getAsync(executor, BASE_URL, "v2/receive/checkgap", buildCheckGapRequest(xPUB), Receive::readGap);
     }
 
 
@@ -115,14 +95,7 @@ public class Receive {
      * @throws APIException If the server returns an error
      */
     public CallbackLog getCallbackLog (String callbackUrl) throws APIException, IOException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put("callback", callbackUrl);
-        params.put("key", apiCode);
-
-        String response = HttpClient.getInstance().get("https://api.blockchain.info/", "v2/receive/callback", params);
-        JsonObject obj = new JsonParser().parse(response).getAsJsonObject();
-
-        return new CallbackLog(obj);
+        return HttpClient.getInstance().get(BASE_URL, "v2/receive/callback", buildCallbackLogRequest(callbackUrl), Receive::readCallbackLog);
     }
 
     /**
@@ -133,14 +106,46 @@ public class Receive {
      * @throws APIException If the server returns an error
      */
     public Future<CallbackLog> getCallbackLogAsync (String callbackUrl) throws APIException, IOException {
-        CompletableFuture<CallbackLog> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getCallbackLog(callbackUrl));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        } );
-        return completableFuture;
+        return HttpClient.getAsync(executor, BASE_URL, "v2/receive/callback", buildCallbackLogRequest(callbackUrl), Receive::readCallbackLog);
+    }
+
+    private Map<String, String> buildReceiveRequest (String xPUB, String callbackUrl) {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("xpub", xPUB);
+        params.put("callback", callbackUrl);
+        params.put("key", apiCode);
+
+        return params;
+    }
+
+    private Map<String, String> buildCheckGapRequest (String xPUB) {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("xpub", xPUB);
+        params.put("key", apiCode);
+
+        return params;
+    }
+
+    private Map<String, String> buildCallbackLogRequest (String callbackUrl) {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("callback", callbackUrl);
+        params.put("key", apiCode);
+
+        return params;
+    }
+
+    private static ReceiveResponse readReceiveResponse (InputStream body) {
+        JsonObject obj = ResponseBodies.readJson(body).getAsJsonObject();
+        return new ReceiveResponse(obj.get("index").getAsInt(), obj.get("address").getAsString(), obj.get("callback").getAsString());
+    }
+
+    private static int readGap (InputStream body) {
+        JsonObject obj = ResponseBodies.readJson(body).getAsJsonObject();
+        return obj.get("gap").getAsInt();
+    }
+
+    private static CallbackLog readCallbackLog (InputStream body) {
+        JsonObject obj = ResponseBodies.readJson(body).getAsJsonObject();
+        return new CallbackLog(obj);
     }
 }
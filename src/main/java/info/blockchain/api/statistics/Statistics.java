@@ -2,17 +2,19 @@ package info.blockchain.api.statistics;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import info.blockchain.api.APIException;
+import info.blockchain.api.AsyncExecutor;
 import info.blockchain.api.HttpClient;
+import info.blockchain.api.ResponseBodies;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 /**
@@ -21,13 +23,23 @@ import java.util.concurrent.Future;
  */
 public class Statistics {
     private final String apiCode;
+    private final AsyncExecutor executor;
 
     public Statistics () {
         this(null);
     }
 
     public Statistics (String apiCode) {
+        this(apiCode, AsyncExecutor.getDefault());
+    }
+
+    /**
+     * @param apiCode  Blockchain.info API code (optional, nullable)
+     * @param executor Executor running the `*Async` methods
+     */
+    public Statistics (String apiCode, AsyncExecutor executor) {
         this.apiCode = apiCode;
+        this.executor = executor;
     }
 
     /**
@@ -37,14 +49,7 @@ public class Statistics {
      * @throws APIException If the server returns an error
      */
     public StatisticsResponse getStats () throws APIException, IOException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put("format", "json");
-        if (apiCode != null) {
-            params.put("api_code", apiCode);
-        }
-
-        String response = HttpClient.getInstance().get("stats", params);
-        return new StatisticsResponse(response);
+        return HttpClient.getInstance().get("stats", buildBasicRequest(), Statistics::readStats);
     }
 
     /**
@@ -54,15 +59,7 @@ public class Statistics {
      * @throws APIException If the server returns an error
      */
     public Future<StatisticsResponse> getStatsAsync () throws APIException, IOException {
-        CompletableFuture<StatisticsResponse> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getStats());
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return HttpClient.getAsync(executor, "stats", buildBasicRequest(), Statistics::readStats);
     }
 
     /**
@@ -75,22 +72,7 @@ public class Statistics {
      * @throws APIException If the server returns an error
      */
     public Chart getChart(String type, String timeSpan, String rollingAverage) throws APIException, IOException {
-        Map<String, String> params = new HashMap<String, String>();
-        params.put("format", "json");
-        if (apiCode != null) {
-            params.put("api_code", apiCode);
-        }
-        if (timeSpan != null) {
-            params.put("timespan", timeSpan);
-        }
-        if (rollingAverage != null) {
-            params.put("rollingAverage", rollingAverage);
-        }
-
-        String response = HttpClient.getInstance().get("charts/" + type, params);
-        JsonObject chartJson = new JsonParser().parse(response).getAsJsonObject();
-
-        return new Chart(chartJson);
+        return HttpClient.getInstance().get("charts/" + type, buildChartRequest(timeSpan, rollingAverage), Statistics::readChart);
     }
 
     /**
@@ -103,15 +85,7 @@ public class Statistics {
      * @throws APIException If the server returns an error
      */
     public Future<Chart> getChartAsync(String type, String timeSpan, String rollingAverage) throws APIException, IOException {
-        CompletableFuture<Chart> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getChart(type, timeSpan, rollingAverage));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
+        return HttpClient.getAsync(executor, "charts/" + type, buildChartRequest(timeSpan, rollingAverage), Statistics::readChart);
     }
 
     /**
@@ -122,40 +96,67 @@ public class Statistics {
      * @throws APIException If the server returns an error
      */
     public Map<String, Integer> getPools(String timeSpan) throws APIException, IOException {
+        return HttpClient.getInstance().get("pools", buildPoolsRequest(timeSpan), Statistics::readPools);
+    }
+
+    /**
+     * This method can be used to get the data behind Blockchain.info's pools information.
+     *
+     * @param timeSpan (Example: 5weeks)
+     * @return a map of pool name and the number of blocks it mined
+     * @throws APIException If the server returns an error
+     */
+    public Future<Map<String, Integer>> getPoolsAsync(String timeSpan) throws APIException, IOException {
+        return HttpClient.getAsync(executor, "pools", buildPoolsRequest(timeSpan), Statistics::readPools);
+    }
+
+    private Map<String, String> buildBasicRequest () {
         Map<String, String> params = new HashMap<String, String>();
         params.put("format", "json");
         if (apiCode != null) {
             params.put("api_code", apiCode);
         }
+
+        return params;
+    }
+
+    private Map<String, String> buildChartRequest (String timeSpan, String rollingAverage) {
+        Map<String, String> params = buildBasicRequest();
+        if (timeSpan != null) {
+            params.put("timespan", timeSpan);
+        }
+        if (rollingAverage != null) {
+            params.put("rollingAverage", rollingAverage);
+        }
+
+        return params;
+    }
+
+    private Map<String, String> buildPoolsRequest (String timeSpan) {
+        Map<String, String> params = buildBasicRequest();
         if (timeSpan != null) {
             params.put("timespan", timeSpan);
         }
 
-        String response = HttpClient.getInstance().get("pools", params);
+        return params;
+    }
+
+    private static StatisticsResponse readStats (InputStream body) {
+        JsonObject statsJson = ResponseBodies.readJson(body).getAsJsonObject();
+        return new StatisticsResponse(statsJson);
+    }
+
+    private static Chart readChart (InputStream body) {
+        JsonObject chartJson = ResponseBodies.readJson(body).getAsJsonObject();
+        return new Chart(chartJson);
+    }
+
+    private static Map<String, Integer> readPools (InputStream body) {
         Type type = new TypeToken<Map<String, String>>(){}.getType();
         Gson gson = new Gson();
-        Map<String, Integer> pools = gson.fromJson(response, type);
+        Map<String, Integer> pools = gson.fromJson(new InputStreamReader(body, StandardCharsets.UTF_8), type);
 
         return pools;
     }
 
-    /**
-     * This method can be used to get the data behind Blockchain.info's pools information.
-     *
-     * @param timeSpan (Example: 5weeks)
-     * @return a map of pool name and the number of blocks it mined
-     * @throws APIException If the server returns an error
-     */
-    public Future<Map<String, Integer>> getPoolsAsync(String timeSpan) throws APIException, IOException {
-        CompletableFuture<Map<String, Integer>> completableFuture = new CompletableFuture<>();
-        Executors.newCachedThreadPool().submit(() -> {
-            try {
-                completableFuture.complete(getPools(timeSpan));
-            } catch (APIException | IOException e) {
-                completableFuture.completeExceptionally(e);
-            }
-        });
-        return completableFuture;
-    }
-
 }
@@ -31,8 +31,10 @@ public class StatisticsResponse {
     private long nextRetarget;
 
     public StatisticsResponse (String jsonString) {
-        JsonObject s = new JsonParser().parse(jsonString).getAsJsonObject();
+        this(new JsonParser().parse(jsonString).getAsJsonObject());
+    }
 
+    public StatisticsResponse (JsonObject s) {
         this.tradeVolumeBTC = new BigDecimal(s.get("trade_volume_btc").getAsString());
         this.tradeVolumeUSD = new BigDecimal(s.get("trade_volume_usd").getAsString());
         this.minersRevenueBTC = new BigDecimal(s.get("miners_revenue_btc").getAsString());
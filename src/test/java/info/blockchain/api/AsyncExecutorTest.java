@@ -0,0 +1,92 @@
+package info.blockchain.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncExecutorTest {
+
+    private AsyncExecutor executor;
+
+    @Before
+    public void setUp () {
+        executor = new AsyncExecutor(2, "test-async");
+    }
+
+    @After
+    public void after () {
+        executor.close();
+    }
+
+    @Test
+    public void runsCallsOnNamedDaemonThreads () throws Exception {
+        Thread thread = executor.supply(Thread::currentThread).get();
+
+        assertTrue(thread.isDaemon());
+        assertTrue(thread.getName().startsWith("test-async-"));
+    }
+
+    @Test
+    public void propagatesCallExceptions () throws Exception {
+        CompletableFuture<String> future = executor.supply(() -> {
+            throw new IOException("unreachable");
+        });
+        try {
+            future.get();
+            fail("Expected the call to fail");
+        } catch (ExecutionException e) {
+            assertEquals(IOException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void errorsCompleteTheFuture () throws Exception {
+        CompletableFuture<String> future = executor.supply(() -> {
+            throw new StackOverflowError();
+        });
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected the call to fail");
+        } catch (ExecutionException e) {
+            assertEquals(StackOverflowError.class, e.getCause().getClass());
+        }
+        try {
+            AsyncExecutor.join(future);
+            fail("Expected the call to fail");
+        } catch (StackOverflowError e) {
+            // Rethrown unchanged
+        }
+    }
+
+    @Test
+    public void rejectsCallsAfterClose () throws Exception {
+        executor.close();
+
+        assertTrue(executor.isClosed());
+        try {
+            executor.supply(() -> "never").get();
+            fail("Expected the call to be rejected");
+        } catch (ExecutionException e) {
+            assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void defaultIsRecreatedAfterClose () {
+        AsyncExecutor shared = AsyncExecutor.getDefault();
+        assertSame(shared, AsyncExecutor.getDefault());
+
+        shared.close();
+
+        assertNotSame(shared, AsyncExecutor.getDefault());
+        assertFalse(AsyncExecutor.getDefault().isClosed());
+    }
+}
@@ -0,0 +1,163 @@
+package info.blockchain.api;
+
+import com.google.gson.stream.MalformedJsonException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private static final String BASE_URL = "https://blockchain.info/";
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void opensAfterConsecutiveFailures () throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(3, 1000, now::get);
+        CircuitBreaker.Circuit circuit = breaker.circuit(BASE_URL, "rawblock/0000");
+
+        for (int i = 0; i < 3; i++) {
+            circuit.acquirePermission();
+            circuit.onFailure(new SocketTimeoutException());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuit.getState());
+        try {
+            circuit.acquirePermission();
+            fail("Expected the circuit to be open");
+        } catch (CircuitOpenException e) {
+            assertEquals("blockchain.info/rawblock", e.getCircuit());
+        }
+    }
+
+    @Test
+    public void successResetsFailureCount () throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000, now::get);
+        CircuitBreaker.Circuit circuit = breaker.circuit(BASE_URL, "rawtx/abcd");
+
+        circuit.onFailure(new IOException());
+        circuit.onSuccess();
+        circuit.onFailure(new IOException());
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getState());
+    }
+
+    @Test
+    public void validationErrorsDoNotCount () {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+        CircuitBreaker.Circuit circuit = breaker.circuit(BASE_URL, "pushtx");
+
+        circuit.onFailure(new APIException("No free outputs to spend", 500, -1));
+        circuit.onFailure(new APIException("Too many requests", 429, -1));
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getState());
+
+        circuit.onFailure(new APIException("Bad gateway", 502, -1));
+        assertEquals(CircuitBreaker.State.OPEN, circuit.getState());
+    }
+
+    @Test
+    public void onlyTransportFailuresOfHandlersCount () {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+        CircuitBreaker.Circuit circuit = breaker.circuit(BASE_URL, "rawblock/0000");
+
+        circuit.onFailure(handlerFailure(new ByteArrayInputStream(new byte[0])));
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getState());
+
+        circuit.onFailure(handlerFailure(new InputStream() {
+            @Override
+            public int read () throws IOException {
+                throw new SocketException("Connection reset");
+            }
+        }));
+        assertEquals(CircuitBreaker.State.OPEN, circuit.getState());
+    }
+
+    @Test
+    public void singleProbeIsSentAfterOpenDuration () throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+        CircuitBreaker.Circuit circuit = breaker.circuit(BASE_URL, "latestblock");
+        circuit.onFailure(new IOException());
+
+        now.addAndGet(1000);
+        circuit.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuit.getState());
+        try {
+            circuit.acquirePermission();
+            fail("Expected only one probe");
+        } catch (CircuitOpenException e) {
+            // expected
+        }
+
+        circuit.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.getState());
+        circuit.acquirePermission();
+    }
+
+    @Test
+    public void failedProbeReopens () throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+        CircuitBreaker.Circuit circuit = breaker.circuit(BASE_URL, "latestblock");
+        circuit.onFailure(new IOException());
+
+        now.addAndGet(1000);
+        circuit.acquirePermission();
+        circuit.onFailure(new IOException());
+        assertEquals(CircuitBreaker.State.OPEN, circuit.getState());
+
+        now.addAndGet(999);
+        try {
+            circuit.acquirePermission();
+            fail("Expected the circuit to be open");
+        } catch (CircuitOpenException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void stateChangesAreReported () throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+        List<String> events = new ArrayList<String>();
+        breaker.addListener((name, from, to) -> events.add(name + ' ' + from + "->" + to));
+
+        CircuitBreaker.Circuit circuit = breaker.circuit(BASE_URL, "charts/market-price");
+        circuit.onFailure(new IOException());
+        now.addAndGet(1000);
+        circuit.acquirePermission();
+        circuit.onSuccess();
+
+        assertEquals(3, events.size());
+        assertEquals("blockchain.info/charts CLOSED->OPEN", events.get(0));
+        assertEquals("blockchain.info/charts OPEN->HALF_OPEN", events.get(1));
+        assertEquals("blockchain.info/charts HALF_OPEN->CLOSED", events.get(2));
+    }
+
+    @Test
+    public void circuitsAreKeptPerHostAndEndpoint () {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+
+        breaker.circuit(BASE_URL, "rawblock/0000").onFailure(new IOException());
+        assertSame(breaker.circuit(BASE_URL, "rawblock/0000"), breaker.circuit(BASE_URL, "rawblock/1111"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.circuit(BASE_URL, "rawtx/0000").getState());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.circuit("https://api.blockchain.info/", "rawblock/0000").getState());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getStates().get("blockchain.info/rawblock"));
+    }
+
+    private static HandlerException handlerFailure (InputStream body) {
+        try {
+            HandlerException.handle(body, in -> {
+                in.read();
+                throw new MalformedJsonException("Unexpected end of input");
+            });
+        } catch (HandlerException e) {
+            return e;
+        }
+        throw new AssertionError("Expected the handler to fail");
+    }
+}
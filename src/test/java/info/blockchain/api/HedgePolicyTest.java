@@ -0,0 +1,44 @@
+package info.blockchain.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HedgePolicyTest {
+
+    @Test
+    public void onlyIdempotentGetsAreHedged () {
+        HedgePolicy policy = new HedgePolicy(95, 10, 1000);
+
+        assertEquals(1000, policy.hedgeDelay("GET", "rawtx/abcd"));
+        assertEquals(-1, policy.hedgeDelay("POST", "pushtx"));
+        assertEquals(-1, policy.hedgeDelay("GET", "merchant/guid/payment"));
+        assertEquals(-1, policy.hedgeDelay("GET", "v2/receive"));
+        // Blocks may be streamed to a visitor, which must not see them twice
+        assertEquals(-1, policy.hedgeDelay("GET", "rawblock/0000"));
+    }
+
+    @Test
+    public void delayFollowsPercentileOfEndpoint () {
+        HedgePolicy policy = new HedgePolicy(90, 10, 1000);
+        for (int i = 1; i <= 64; i++) {
+            policy.recordLatency("rawtx/" + i, i * 2);
+        }
+
+        assertEquals(116, policy.hedgeDelay("GET", "rawtx/0000"));
+        // Other endpoints keep the maximum delay until they have samples of their own
+        assertEquals(1000, policy.hedgeDelay("GET", "latestblock"));
+    }
+
+    @Test
+    public void delayIsClamped () {
+        HedgePolicy policy = new HedgePolicy(50, 100, 500);
+        for (int i = 0; i < 50; i++) {
+            policy.recordLatency("ticker", 1);
+            policy.recordLatency("stats", 10000);
+        }
+
+        assertEquals(100, policy.hedgeDelay("GET", "ticker"));
+        assertEquals(500, policy.hedgeDelay("GET", "stats"));
+    }
+}
@@ -0,0 +1,304 @@
+package info.blockchain.api;
+
+import com.google.gson.stream.MalformedJsonException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class HttpClientTest {
+
+    private HttpServer server;
+    private String baseURL;
+    private HttpClient client;
+    private final AtomicInteger flakyRequests = new AtomicInteger();
+    private final AtomicInteger unavailableRequests = new AtomicInteger();
+    private final AtomicInteger truncatedRequests = new AtomicInteger();
+
+    @Before
+    public void setUp () throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestURI().getQuery().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/fail", exchange -> {
+            byte[] body = "Invalid parameter".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(500, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/gzip", exchange -> {
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body = repeat("{\"hash\":\"0000\"}", 1000).getBytes(StandardCharsets.UTF_8);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/flaky", exchange -> {
+            // Every request except each third one is throttled
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            int status = 200;
+            if (flakyRequests.incrementAndGet() % 3 != 0) {
+                body = "Too many requests".getBytes(StandardCharsets.UTF_8);
+                status = 429;
+                exchange.getResponseHeaders().set("Retry-After", "0");
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/json", exchange -> {
+            byte[] body = "{\"values\":[1,2,3]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/truncated", exchange -> {
+            truncatedRequests.incrementAndGet();
+            byte[] body = "{\"values\":[1,2,".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/form", exchange -> {
+            String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] body = (form.equals("tx=0100") ? "ok" : form).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/unavailable", exchange -> {
+            unavailableRequests.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseURL = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        client = new HttpClient();
+        HttpClient.getCompressionStats().reset();
+    }
+
+    @After
+    public void after () {
+        server.stop(0);
+        HttpClient.READ_TIMEOUT_MS = 30000;
+        HttpClient.COMPRESSION_ENABLED = true;
+        HttpClient.setRetryPolicy(RetryPolicy.DEFAULT);
+        HttpClient.setCircuitBreaker(null);
+        HttpClient.setMetrics(null);
+        HttpClient.setTimingListener(null);
+    }
+
+    @Test
+    public void getReturnsBody () throws Exception {
+        assertEquals("format=json", client.get(baseURL, "echo", Collections.singletonMap("format", "json")));
+    }
+
+    @Test
+    public void errorBodyIsReportedAsAPIException () throws Exception {
+        try {
+            client.get(baseURL, "fail", Collections.<String, String>emptyMap());
+            fail("Expected the request to fail");
+        } catch (APIException e) {
+            assertEquals("Invalid parameter", e.getMessage());
+        }
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void readTimeoutIsApplied () throws Exception {
+        HttpClient.READ_TIMEOUT_MS = 200;
+        client.get(baseURL, "slow", Collections.<String, String>emptyMap());
+    }
+
+    @Test
+    public void gzipResponseIsDecoded () throws Exception {
+        String expected = repeat("{\"hash\":\"0000\"}", 1000);
+        assertEquals(expected, client.get(baseURL, "gzip", Collections.<String, String>emptyMap()));
+
+        CompressionStats stats = HttpClient.getCompressionStats();
+        assertEquals(1, stats.getCompressedResponses());
+        assertEquals(expected.length(), stats.getDecompressedBytes());
+        assertTrue(stats.getCompressedBytes() < stats.getDecompressedBytes());
+    }
+
+    @Test
+    public void compressionCanBeDisabled () throws Exception {
+        HttpClient.COMPRESSION_ENABLED = false;
+        String expected = repeat("{\"hash\":\"0000\"}", 1000);
+        assertEquals(expected, client.get(baseURL, "gzip", Collections.<String, String>emptyMap()));
+
+        CompressionStats stats = HttpClient.getCompressionStats();
+        assertEquals(0, stats.getCompressedResponses());
+        assertEquals(stats.getCompressedBytes(), stats.getDecompressedBytes());
+    }
+
+    @Test
+    public void throttledGetIsRetried () throws Exception {
+        HttpClient.setRetryPolicy(new RetryPolicy(3, 10, 10, 5000, false, Collections.singleton("flaky")));
+        assertEquals("ok", client.get(baseURL, "flaky", Collections.<String, String>emptyMap()));
+        assertEquals(3, flakyRequests.get());
+    }
+
+    @Test
+    public void postIsNotRetried () throws Exception {
+        HttpClient.setRetryPolicy(new RetryPolicy(3, 10, 10, 5000, false));
+        try {
+            client.post(baseURL, "flaky", Collections.<String, String>emptyMap());
+            fail("Expected the request to fail");
+        } catch (APIException e) {
+            assertEquals(429, e.getStatusCode());
+            assertEquals(0, e.getRetryAfterMillis());
+        }
+        assertEquals(1, flakyRequests.get());
+    }
+
+    @Test
+    public void getOfNonIdempotentEndpointIsNotRetried () throws Exception {
+        HttpClient.setRetryPolicy(new RetryPolicy(3, 10, 10, 5000, false));
+        try {
+            client.get(baseURL, "flaky", Collections.<String, String>emptyMap());
+            fail("Expected the request to fail");
+        } catch (APIException e) {
+            assertEquals(429, e.getStatusCode());
+        }
+        assertEquals(1, flakyRequests.get());
+    }
+
+    @Test
+    public void handlerFailureIsNotRetriedAndPassedOnUnchanged () throws Exception {
+        HttpClient.setRetryPolicy(new RetryPolicy(3, 10, 10, 5000, false, Collections.singleton("truncated")));
+        try {
+            client.get(baseURL, "truncated", Collections.<String, String>emptyMap(), body -> {
+                ResponseBodies.readString(body);
+                throw new MalformedJsonException("Unterminated array");
+            });
+            fail("Expected the handler to fail");
+        } catch (MalformedJsonException e) {
+            assertEquals("Unterminated array", e.getMessage());
+        }
+        assertEquals(1, truncatedRequests.get());
+    }
+
+    @Test
+    public void openCircuitFailsFastWithoutSending () throws Exception {
+        HttpClient.setRetryPolicy(RetryPolicy.NONE);
+        HttpClient.setCircuitBreaker(new CircuitBreaker(2, 60000));
+        for (int i = 0; i < 2; i++) {
+            try {
+                client.get(baseURL, "unavailable", Collections.<String, String>emptyMap());
+                fail("Expected the request to fail");
+            } catch (APIException e) {
+                assertEquals(503, e.getStatusCode());
+            }
+        }
+
+        try {
+            client.get(baseURL, "unavailable", Collections.<String, String>emptyMap());
+            fail("Expected the circuit to be open");
+        } catch (CircuitOpenException e) {
+            assertEquals(2, unavailableRequests.get());
+        }
+        // Other endpoints of the host are not affected
+        assertEquals("format=json", client.get(baseURL, "echo", Collections.singletonMap("format", "json")));
+    }
+
+    @Test
+    public void requestsAreReportedToMetrics () throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        HttpClient.setMetrics(metrics);
+        HttpClient.setRetryPolicy(new RetryPolicy(3, 10, 10, 5000, false, Collections.singleton("flaky")));
+
+        client.get(baseURL, "echo", Collections.singletonMap("format", "json"));
+        client.get(baseURL, "flaky", Collections.<String, String>emptyMap());
+
+        EndpointMetrics echo = metrics.getEndpoint("echo");
+        assertEquals(1, echo.getRequests());
+        assertEquals(Long.valueOf(1), echo.getStatusCodes().get(200));
+        assertEquals("format=json".length(), echo.getBytesReceived());
+        assertEquals(1, echo.getParseTime().getCount());
+        assertTrue(echo.getLatency().getMax() > 0);
+
+        EndpointMetrics flaky = metrics.getEndpoint("flaky");
+        assertEquals(3, flaky.getRequests());
+        assertEquals(2, flaky.getRetries());
+        assertEquals(Long.valueOf(2), flaky.getStatusCodes().get(429));
+    }
+
+    @Test
+    public void timingBreakdownIsReported () throws Exception {
+        List<CallTimings> timings = new ArrayList<CallTimings>();
+        HttpClient.setTimingListener(timings::add);
+
+        int size = client.get(baseURL, "json", Collections.<String, String>emptyMap(),
+                body -> ResponseBodies.readJson(body).getAsJsonObject().getAsJsonArray("values").size());
+
+        assertEquals(3, size);
+        assertEquals(1, timings.size());
+        CallTimings call = timings.get(0);
+        assertEquals("json", call.getEndpoint());
+        assertEquals(200, call.getStatusCode());
+        assertTrue(call.getConnectNanos() >= 0);
+        assertTrue(call.getTimeToFirstByteNanos() > 0);
+        assertTrue(call.getParseNanos() > 0);
+        assertTrue(call.getMappingNanos() >= 0);
+        assertTrue(call.getTotalNanos() >= call.getConnectNanos() + call.getTimeToFirstByteNanos()
+                + call.getBodyReadNanos() + call.getParseNanos() + call.getMappingNanos());
+    }
+
+    @Test
+    public void timingsOfPostAreReported () throws Exception {
+        List<CallTimings> timings = new ArrayList<CallTimings>();
+        HttpClient.setTimingListener(timings::add);
+
+        assertEquals("ok", client.post(baseURL, "form", Collections.singletonMap("tx", "0100")));
+
+        assertEquals(1, timings.size());
+        CallTimings call = timings.get(0);
+        assertEquals("form", call.getEndpoint());
+        assertEquals(200, call.getStatusCode());
+        assertTrue(call.getConnectNanos() >= 0);
+        assertTrue(call.getTimeToFirstByteNanos() > 0);
+    }
+
+    private static String repeat (String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
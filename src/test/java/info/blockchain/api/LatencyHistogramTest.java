@@ -0,0 +1,56 @@
+package info.blockchain.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesAreWithinPrecision () {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000000, histogram.getMax());
+        assertEquals(5000500, histogram.getMean(), 1);
+        assertWithin(5000000, histogram.getValueAtPercentile(50));
+        assertWithin(9900000, histogram.getValueAtPercentile(99));
+        assertEquals(10000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void smallValuesAreExact () {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(7, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void bucketsCoverTheWholeRange () {
+        for (long value : new long[]{0, 31, 32, 63, 64, 1000, 123456789, Long.MAX_VALUE}) {
+            long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(value));
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 32);
+        }
+    }
+
+    @Test
+    public void resetClearsValues () {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    private static void assertWithin (long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 32);
+    }
+}
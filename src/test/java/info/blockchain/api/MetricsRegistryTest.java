@@ -0,0 +1,43 @@
+package info.blockchain.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void endpointNamesLeaveOutIdentifiers () {
+        assertEquals("rawtx", RequestMetrics.endpointName("rawtx/b6f6991d"));
+        assertEquals("unspent", RequestMetrics.endpointName("unspent"));
+        assertEquals("block-height", RequestMetrics.endpointName("block-height/500000"));
+        assertEquals("charts/market-price", RequestMetrics.endpointName("charts/market-price"));
+        assertEquals("merchant/payment", RequestMetrics.endpointName("merchant/8a3b-guid/payment"));
+        assertEquals("v2/receive/checkgap", RequestMetrics.endpointName("v2/receive/checkgap"));
+        assertEquals("api/v2/create", RequestMetrics.endpointName("api/v2/create"));
+    }
+
+    @Test
+    public void requestsAreAggregatedPerEndpoint () {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordRequest("rawtx", "GET", 200, 2000000, 0, 1500);
+        registry.recordRequest("rawtx", "GET", 503, 1000000, 0, 20);
+        registry.recordRetry("rawtx");
+        registry.recordParse("rawtx", 300000);
+        registry.recordRequest("pushtx", "POST", 500, 1000000, 400, 30);
+
+        EndpointMetrics rawtx = registry.getEndpoint("rawtx");
+        assertEquals(2, rawtx.getRequests());
+        assertEquals(1, rawtx.getRetries());
+        assertEquals(1520, rawtx.getBytesReceived());
+        assertEquals(Long.valueOf(1), rawtx.getStatusCodes().get(200));
+        assertEquals(Long.valueOf(1), rawtx.getStatusCodes().get(503));
+        assertEquals(2000000, rawtx.getLatency().getMax());
+        assertEquals(1, rawtx.getParseTime().getCount());
+        assertEquals(400, registry.getEndpoint("pushtx").getBytesSent());
+        assertEquals(2, registry.getEndpoints().size());
+
+        registry.reset();
+        assertNull(registry.getEndpoint("rawtx"));
+    }
+}
@@ -0,0 +1,171 @@
+package info.blockchain.api;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class NonBlockingHttpClientTest {
+
+    private HttpServer server;
+    private String baseURL;
+    private NonBlockingHttpClient client;
+    private final AtomicInteger unavailableRequests = new AtomicInteger();
+    private final AtomicInteger slowOnceRequests = new AtomicInteger();
+
+    @Before
+    public void setUp () throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestURI().getQuery().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/fail", exchange -> {
+            byte[] body = "Invalid parameter".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(500, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/unavailable-once", exchange -> {
+            boolean first = unavailableRequests.incrementAndGet() == 1;
+            byte[] body = (first ? "Service unavailable" : "ok").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(first ? 503 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/rawtx", exchange -> {
+            // The first request stalls, later ones respond at once
+            if (slowOnceRequests.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseURL = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        client = new NonBlockingHttpClient();
+    }
+
+    @After
+    public void after () {
+        server.stop(0);
+        HttpClient.setCircuitBreaker(null);
+        HttpClient.setTimingListener(null);
+        HttpClient.setRetryPolicy(RetryPolicy.DEFAULT);
+    }
+
+    @Test
+    public void getAsyncReturnsBody () throws Exception {
+        CompletableFuture<String> future = client.getAsync(baseURL, "echo", Collections.singletonMap("format", "json"));
+
+        assertEquals("format=json", future.get());
+    }
+
+    @Test
+    public void getAsyncFailsWithAPIException () throws Exception {
+        try {
+            client.getAsync(baseURL, "fail", Collections.<String, String>emptyMap()).get();
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertEquals(APIException.class, e.getCause().getClass());
+            assertEquals("Invalid parameter", e.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = APIException.class)
+    public void blockingGetThrowsAPIException () throws Exception {
+        client.get(baseURL, "fail", Collections.<String, String>emptyMap());
+    }
+
+    @Test
+    public void unavailableResponseIsRetriedAsynchronously () throws Exception {
+        HttpClient.setRetryPolicy(new RetryPolicy(2, 10, 10, 5000, false, Collections.singleton("unavailable-once")));
+        assertEquals("ok", client.getAsync(baseURL, "unavailable-once", Collections.<String, String>emptyMap()).get());
+        assertEquals(2, unavailableRequests.get());
+    }
+
+    @Test
+    public void responseSlowerThanConnectTimeoutIsAwaited () throws Exception {
+        int connectTimeout = HttpClient.TIMEOUT_MS;
+        int readTimeout = HttpClient.READ_TIMEOUT_MS;
+        HttpClient.TIMEOUT_MS = 200;
+        HttpClient.READ_TIMEOUT_MS = 5000;
+        try {
+            assertEquals("ok", client.getAsync(baseURL, "slow", Collections.<String, String>emptyMap()).get());
+        } finally {
+            HttpClient.TIMEOUT_MS = connectTimeout;
+            HttpClient.READ_TIMEOUT_MS = readTimeout;
+        }
+    }
+
+    @Test
+    public void slowGetIsHedged () throws Exception {
+        HedgePolicy policy = new HedgePolicy(95, 50, 50);
+        client.setHedgePolicy(policy);
+
+        long start = System.nanoTime();
+        assertEquals("ok", client.getAsync(baseURL, "rawtx/abcd", Collections.<String, String>emptyMap()).get());
+        assertTrue(System.nanoTime() - start < 4000000000L);
+        assertEquals(2, slowOnceRequests.get());
+        assertEquals(1, policy.getHedgedRequests());
+        assertEquals(1, policy.getHedgeWins());
+    }
+
+    @Test
+    public void cancelledLoserDoesNotCountAsCircuitFailure () throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 60000);
+        HttpClient.setCircuitBreaker(breaker);
+        client.setHedgePolicy(new HedgePolicy(95, 50, 50));
+
+        assertEquals("ok", client.getAsync(baseURL, "rawtx/abcd", Collections.<String, String>emptyMap()).get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.circuit(baseURL, "rawtx").getState());
+    }
+
+    @Test
+    public void timingBreakdownIsReported () throws Exception {
+        List<CallTimings> timings = new CopyOnWriteArrayList<CallTimings>();
+        HttpClient.setTimingListener(timings::add);
+
+        client.getAsync(baseURL, "echo", Collections.singletonMap("format", "json"), ResponseBodies::readString).get();
+
+        assertEquals(1, timings.size());
+        CallTimings call = timings.get(0);
+        assertEquals("echo", call.getEndpoint());
+        assertEquals(-1, call.getConnectNanos());
+        assertTrue(call.getTimeToFirstByteNanos() > 0);
+        assertTrue(call.getBodyReadNanos() >= 0);
+        assertEquals(0, call.getParseNanos());
+    }
+}
@@ -0,0 +1,69 @@
+package info.blockchain.api;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void burstIsAllowedThenRequestsQueue () {
+        RateLimiter limiter = new RateLimiter(2, 3, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.reserve("code"));
+        }
+        // Each further request waits half a second longer than the previous one
+        assertEquals(SECOND / 2, limiter.reserve("code"));
+        assertEquals(SECOND, limiter.reserve("code"));
+    }
+
+    @Test
+    public void tokensRefillOverTime () {
+        RateLimiter limiter = new RateLimiter(1, 1, now::get);
+
+        assertTrue(limiter.tryAcquire("code"));
+        assertFalse(limiter.tryAcquire("code"));
+        now.addAndGet(SECOND);
+        assertTrue(limiter.tryAcquire("code"));
+
+        // A long pause does not allow more than the burst
+        now.addAndGet(60 * SECOND);
+        assertTrue(limiter.tryAcquire("code"));
+        assertFalse(limiter.tryAcquire("code"));
+    }
+
+    @Test
+    public void apiCodesHaveSeparateBuckets () {
+        RateLimiter limiter = new RateLimiter(1, 1, now::get);
+        limiter.setLimit("premium", 10, 5);
+
+        assertTrue(limiter.tryAcquire("code"));
+        assertFalse(limiter.tryAcquire("code"));
+        assertTrue(limiter.tryAcquire(null));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("premium"));
+        }
+        assertFalse(limiter.tryAcquire("premium"));
+    }
+
+    @Test
+    public void acquireAsyncCompletesWhenTokenIsDue () throws Exception {
+        RateLimiter limiter = new RateLimiter(20, 1);
+
+        assertTrue(limiter.acquireAsync("code").isDone());
+        long start = System.nanoTime();
+        CompletableFuture<Void> queued = limiter.acquireAsync("code");
+        assertFalse(queued.isDone());
+        queued.get(1, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+}
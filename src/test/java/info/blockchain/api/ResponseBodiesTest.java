@@ -0,0 +1,33 @@
+package info.blockchain.api;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ResponseBodiesTest {
+
+    @Test
+    public void readStringDecodesUtf8 () throws Exception {
+        String text = "{\"symbol\":\"€\"}\n";
+        assertEquals(text, ResponseBodies.readString(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void readBytesGrowsPastInitialBuffer () throws Exception {
+        byte[] body = new byte[100 * 1024];
+        Arrays.fill(body, (byte) 'a');
+        assertArrayEquals(body, ResponseBodies.readBytes(new ByteArrayInputStream(body)));
+        // The next, smaller body must not see leftovers of the previous one
+        assertEquals("b", ResponseBodies.readString(new ByteArrayInputStream(new byte[] {'b'})));
+    }
+
+    @Test
+    public void readJsonParsesStream () {
+        byte[] body = "{\"n_tx\":3}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(3, ResponseBodies.readJson(new ByteArrayInputStream(body)).getAsJsonObject().get("n_tx").getAsInt());
+    }
+}
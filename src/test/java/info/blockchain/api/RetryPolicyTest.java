@@ -0,0 +1,80 @@
+package info.blockchain.api;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(4, 100, 300, 10000, false);
+
+    @Test
+    public void backoffGrowsExponentiallyUpToMaximum () {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.delayAfterFailure("GET", "rawtx/abc", 1, 0, new IOException()) <= 100);
+            assertTrue(policy.delayAfterFailure("GET", "rawtx/abc", 2, 0, new IOException()) <= 200);
+            assertTrue(policy.delayAfterFailure("GET", "rawtx/abc", 3, 0, new IOException()) <= 300);
+        }
+        assertEquals(-1, policy.delayAfterFailure("GET", "rawtx/abc", 4, 0, new IOException()));
+    }
+
+    @Test
+    public void onlyTransientFailuresAreRetried () {
+        assertTrue(policy.delayAfterFailure("GET", "rawtx/abc", 1, 0, new SocketTimeoutException()) >= 0);
+        assertTrue(policy.delayAfterStatus("GET", "rawtx/abc", 1, 0, 503, -1) >= 0);
+        assertTrue(policy.delayAfterStatus("GET", "rawtx/abc", 1, 0, 429, -1) >= 0);
+        assertEquals(-1, policy.delayAfterStatus("GET", "rawtx/abc", 1, 0, 500, -1));
+        assertEquals(-1, policy.delayAfterFailure("GET", "rawtx/abc", 1, 0, new APIException("Invalid Bitcoin Address", 400, -1)));
+        assertEquals(-1, policy.delayAfterFailure("GET", "rawtx/abc", 1, 0, new InterruptedIOException()));
+    }
+
+    @Test
+    public void postsAreNotRetriedByDefault () {
+        assertEquals(-1, policy.delayAfterFailure("POST", "rawtx/abc", 1, 0, new IOException()));
+        RetryPolicy retryPosts = new RetryPolicy(2, 100, 100, 1000, true);
+        assertTrue(retryPosts.delayAfterFailure("POST", "rawtx/abc", 1, 0, new IOException()) >= 0);
+    }
+
+    @Test
+    public void onlyIdempotentGetsAreRetried () {
+        assertTrue(policy.delayAfterFailure("GET", "charts/market-price", 1, 0, new IOException()) >= 0);
+        assertTrue(policy.delayAfterFailure("GET", "v2/receive/checkgap", 1, 0, new IOException()) >= 0);
+        assertTrue(policy.delayAfterFailure("GET", "merchant/guid/balance", 1, 0, new IOException()) >= 0);
+        assertEquals(-1, policy.delayAfterFailure("GET", "v2/receive", 1, 0, new IOException()));
+        assertEquals(-1, policy.delayAfterStatus("GET", "v2/receive", 1, 0, 503, -1));
+    }
+
+    @Test
+    public void handlerFailuresAreNotRetried () {
+        try {
+            HandlerException.handle(new ByteArrayInputStream(new byte[0]), body -> {
+                throw new EOFException();
+            });
+            fail("Expected the handler to fail");
+        } catch (HandlerException e) {
+            assertFalse(e.isTransportFailure());
+            assertEquals(-1, policy.delayAfterFailure("GET", "rawtx/abc", 1, 0, e));
+        }
+    }
+
+    @Test
+    public void retryAfterIsRespectedWithinBudget () {
+        assertEquals(2000, policy.delayAfterStatus("GET", "rawtx/abc", 1, 0, 429, 2000));
+        assertEquals(-1, policy.delayAfterStatus("GET", "rawtx/abc", 1, 9000, 429, 2000));
+    }
+
+    @Test
+    public void retryAfterHeaderIsParsed () {
+        long now = 1500000000000L;
+        assertEquals(120000, RetryPolicy.parseRetryAfter("120", now));
+        assertEquals(30000, RetryPolicy.parseRetryAfter("Fri, 14 Jul 2017 02:40:30 GMT", now));
+        assertEquals(-1, RetryPolicy.parseRetryAfter(null, now));
+        assertEquals(-1, RetryPolicy.parseRetryAfter("soon", now));
+    }
+}
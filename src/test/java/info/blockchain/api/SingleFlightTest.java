@@ -0,0 +1,106 @@
+package info.blockchain.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    public void concurrentCallsShareOneRequest () throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        CompletableFuture<Void> release = new CompletableFuture<Void>();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>();
+            Object shared = new Object();
+            for (int i = 0; i < 8; i++) {
+                results.add(threads.submit(() -> singleFlight.call("latestblock", Collections.<String, String>emptyMap(), () -> {
+                    requests.incrementAndGet();
+                    release.join();
+                    return shared;
+                })));
+            }
+            while (singleFlight.size() == 0) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(100);
+            release.complete(null);
+
+            for (Future<Object> result : results) {
+                assertSame(shared, result.get());
+            }
+            assertEquals(1, requests.get());
+            assertEquals(0, singleFlight.size());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void exceptionIsSharedWithWaitingCallers () throws Exception {
+        CompletableFuture<String> request = new CompletableFuture<String>();
+        CompletableFuture<String> first = singleFlight.callAsync("ticker", null, () -> request);
+        CompletableFuture<String> second = singleFlight.callAsync("ticker", null, () -> {
+            throw new AssertionError("Expected the running request to be reused");
+        });
+
+        request.completeExceptionally(new APIException("Maximum concurrent requests reached"));
+        for (CompletableFuture<String> future : Arrays.asList(first, second)) {
+            try {
+                future.get();
+                fail("Expected the request to fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof APIException);
+            }
+        }
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void cancellingOneCallerDoesNotAffectOthers () throws Exception {
+        CompletableFuture<String> request = new CompletableFuture<String>();
+        CompletableFuture<String> first = singleFlight.callAsync("ticker", null, () -> request);
+        CompletableFuture<String> second = singleFlight.callAsync("ticker", null, () -> request);
+
+        first.cancel(true);
+        request.complete("{}");
+        assertEquals("{}", second.get());
+    }
+
+    @Test
+    public void parameterOrderDoesNotMatter () throws Exception {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("format", "json");
+        params.put("api_code", "code");
+        Map<String, String> reordered = new LinkedHashMap<String, String>();
+        reordered.put("api_code", "code");
+        reordered.put("format", "json");
+
+        CompletableFuture<String> request = new CompletableFuture<String>();
+        CompletableFuture<String> first = singleFlight.callAsync("rawblock/abc", params, () -> request);
+        CompletableFuture<String> second = singleFlight.callAsync("rawblock/abc", reordered, () -> CompletableFuture.completedFuture("other"));
+        CompletableFuture<String> different = singleFlight.callAsync("rawblock/def", params, () -> CompletableFuture.completedFuture("other"));
+
+        request.complete("block");
+        assertEquals("block", first.get());
+        assertEquals("block", second.get());
+        assertEquals("other", different.get());
+    }
+}
@@ -0,0 +1,90 @@
+package info.blockchain.api.blockexplorer;
+
+import info.blockchain.api.APIException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class AddressChunksTest {
+
+    private static final String ADDRESS = "1EjmmDULiZT2GCbJSeXRbjbJVvAPYkSDBw";
+
+    @Test
+    public void shortListIsNotSplit () {
+        List<String> addresses = Arrays.asList(ADDRESS, ADDRESS);
+        assertEquals(Collections.singletonList(addresses), AddressChunks.split(addresses, 4000));
+    }
+
+    @Test
+    public void longListIsSplitByEncodedLength () {
+        List<String> addresses = Collections.nCopies(250, ADDRESS);
+        List<List<String>> chunks = AddressChunks.split(addresses, 4000);
+
+        // 34 characters per address plus 3 for the encoded separator
+        int perChunk = (4000 + 3) / (34 + 3);
+        assertEquals(3, chunks.size());
+        assertEquals(perChunk, chunks.get(0).size());
+        assertEquals(perChunk, chunks.get(1).size());
+        assertEquals(250 - 2 * perChunk, chunks.get(2).size());
+    }
+
+    @Test
+    public void addressLongerThanLimitGetsOwnChunk () {
+        List<List<String>> chunks = AddressChunks.split(Arrays.asList(ADDRESS, ADDRESS), 10);
+        assertEquals(2, chunks.size());
+    }
+
+    @Test
+    public void fanOutKeepsOrderAndRespectsConcurrencyCap () throws Exception {
+        List<List<String>> chunks = new ArrayList<List<String>>();
+        for (int i = 0; i < 10; i++) {
+            chunks.add(Collections.singletonList(String.valueOf(i)));
+        }
+        List<CompletableFuture<String>> running = new ArrayList<CompletableFuture<String>>();
+
+        CompletableFuture<List<String>> merged = AddressChunks.fanOut(chunks, 3, chunk -> {
+            CompletableFuture<String> result = new CompletableFuture<String>();
+            running.add(result);
+            return result;
+        });
+
+        assertEquals(3, running.size());
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            // Each completed request starts the next chunk
+            running.get(i).complete("r" + i);
+            assertEquals(Math.min(10, i + 4), running.size());
+            expected.add("r" + i);
+        }
+
+        assertEquals(expected, merged.get());
+    }
+
+    @Test
+    public void fanOutFailsOnFirstError () throws Exception {
+        List<List<String>> chunks = Arrays.asList(Collections.singletonList("a"), Collections.singletonList("b"), Collections.singletonList("c"));
+        List<String> requested = new ArrayList<String>();
+
+        CompletableFuture<List<String>> merged = AddressChunks.fanOut(chunks, 1, chunk -> {
+            requested.add(chunk.get(0));
+            CompletableFuture<String> result = new CompletableFuture<String>();
+            result.completeExceptionally(new APIException("Invalid Bitcoin Address"));
+            return result;
+        });
+
+        try {
+            merged.get();
+            fail("Expected the fan-out to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof APIException);
+        }
+        assertEquals(Collections.singletonList("a"), requested);
+    }
+}
@@ -0,0 +1,170 @@
+package info.blockchain.api.blockexplorer;
+
+import info.blockchain.api.APIException;
+import info.blockchain.api.AsyncExecutor;
+import info.blockchain.api.HttpClient;
+import info.blockchain.api.HttpClientInterface;
+import info.blockchain.api.blockexplorer.entity.Balance;
+import info.blockchain.api.blockexplorer.entity.FilterType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class BalanceBatcherTest {
+
+    private final List<Map<String, String>> calls = new CopyOnWriteArrayList<Map<String, String>>();
+    private AsyncExecutor executor;
+    private BlockExplorer blockExplorer;
+
+    @Before
+    public void setUp () {
+        HttpClient.setCustomHttpClient(new BalanceClient());
+        executor = new AsyncExecutor(2);
+        blockExplorer = new BlockExplorer(null, executor);
+    }
+
+    @After
+    public void after () {
+        HttpClient.setCustomHttpClient(null);
+        executor.close();
+    }
+
+    @Test
+    public void fullBatchIsSentImmediately () throws Exception {
+        try (BalanceBatcher batcher = new BalanceBatcher(blockExplorer, 3, 60000)) {
+            List<CompletableFuture<Balance>> balances = new ArrayList<CompletableFuture<Balance>>();
+            for (int i = 1; i <= 3; i++) {
+                balances.add(batcher.getBalance("addr" + i));
+            }
+            for (int i = 1; i <= 3; i++) {
+                assertEquals(i, balances.get(i - 1).get().getFinalBalance());
+            }
+            assertEquals(1, calls.size());
+            assertEquals("addr1|addr2|addr3", calls.get(0).get("active"));
+            assertEquals(1, batcher.getBatches());
+            assertEquals(3, batcher.getRequests());
+        }
+    }
+
+    @Test
+    public void partialBatchIsSentAfterDelay () throws Exception {
+        try (BalanceBatcher batcher = new BalanceBatcher(blockExplorer, 100, 20)) {
+            CompletableFuture<Balance> first = batcher.getBalance("addr1");
+            CompletableFuture<Balance> duplicate = batcher.getBalance("addr1");
+            CompletableFuture<Balance> second = batcher.getBalance("addr2");
+
+            assertEquals(1, first.get().getFinalBalance());
+            assertEquals(1, duplicate.get().getFinalBalance());
+            assertEquals(2, second.get().getFinalBalance());
+            assertEquals(1, calls.size());
+            assertEquals("addr1|addr2", calls.get(0).get("active"));
+        }
+    }
+
+    @Test
+    public void filtersAreBatchedSeparately () throws Exception {
+        try (BalanceBatcher batcher = new BalanceBatcher(blockExplorer, 100, 20)) {
+            CompletableFuture<Balance> all = batcher.getBalance("addr1", FilterType.All);
+            CompletableFuture<Balance> confirmed = batcher.getBalance("addr2", FilterType.ConfirmedOnly);
+
+            all.get();
+            confirmed.get();
+            assertEquals(2, calls.size());
+        }
+    }
+
+    @Test
+    public void batchFailureIsPassedToEveryRequest () throws Exception {
+        try (BalanceBatcher batcher = new BalanceBatcher(blockExplorer, 2, 60000)) {
+            CompletableFuture<Balance> valid = batcher.getBalance("addr1");
+            CompletableFuture<Balance> invalid = batcher.getBalance("invalid");
+
+            List<CompletableFuture<Balance>> balances = Arrays.asList(valid, invalid);
+            for (CompletableFuture<Balance> balance : balances) {
+                try {
+                    balance.get();
+                    fail("Expected the batch to fail");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof APIException);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void addressMissingFromResponseFails () throws Exception {
+        try (BalanceBatcher batcher = new BalanceBatcher(blockExplorer, 2, 60000)) {
+            CompletableFuture<Balance> valid = batcher.getBalance("addr1");
+            CompletableFuture<Balance> missing = batcher.getBalance("missing");
+
+            assertEquals(1, valid.get().getFinalBalance());
+            try {
+                missing.get();
+                fail("Expected the missing balance to fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof APIException);
+                assertTrue(e.getCause().getMessage().contains("missing"));
+            }
+        }
+    }
+
+    @Test
+    public void closeSendsPendingBatches () throws Exception {
+        BalanceBatcher batcher = new BalanceBatcher(blockExplorer, 100, 60000);
+        CompletableFuture<Balance> balance = batcher.getBalance("addr5");
+        batcher.close();
+
+        assertEquals(5, balance.get().getFinalBalance());
+        assertTrue(batcher.getBalance("addr1").isCompletedExceptionally());
+    }
+
+    /**
+     * Answers balance requests with a final balance equal to the number in each address,
+     * leaving out the address "missing".
+     */
+    private class BalanceClient implements HttpClientInterface {
+        @Override
+        public String get (String resource, Map<String, String> params) throws APIException {
+            calls.add(params);
+            StringBuilder json = new StringBuilder("{");
+            for (String address : params.get("active").split("\\|")) {
+                if (address.equals("invalid")) {
+                    throw new APIException("Invalid Bitcoin Address");
+                }
+                if (address.equals("missing")) {
+                    continue;
+                }
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append('"').append(address).append("\":{\"final_balance\":").append(address.substring(4)).append('}');
+            }
+            return json.append('}').toString();
+        }
+
+        @Override
+        public String get (String baseURL, String resource, Map<String, String> params) throws APIException {
+            return get(resource, params);
+        }
+
+        @Override
+        public String post (String resource, Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String post (String baseURL, String resource, Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package info.blockchain.api.blockexplorer;
+
+import com.sun.net.httpserver.HttpServer;
+import info.blockchain.api.APIException;
+import info.blockchain.api.HttpClient;
+import info.blockchain.api.HttpClientInterface;
+import info.blockchain.api.ResponseHandler;
+import info.blockchain.api.RetryPolicy;
+import info.blockchain.api.blockexplorer.entity.BlockVisitor;
+import info.blockchain.api.blockexplorer.entity.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BlockStreamTest {
+
+    // Cuts the fixture after its first transaction
+    private static final int TRUNCATED_LENGTH = 2000;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+
+    @Before
+    public void setUp () throws Exception {
+        byte[] block;
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/rawblock.json")) {
+            block = in.readAllBytes();
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rawblock", exchange -> {
+            // The connection is closed before the announced length was sent
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, block.length);
+            exchange.getResponseBody().write(block, 0, TRUNCATED_LENGTH);
+            exchange.getResponseBody().flush();
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        HttpClient.setCustomHttpClient(new LocalClient("http://127.0.0.1:" + server.getAddress().getPort() + "/"));
+        HttpClient.setRetryPolicy(new RetryPolicy(3, 10, 10, 5000, false));
+    }
+
+    @After
+    public void after () {
+        server.stop(0);
+        HttpClient.setCustomHttpClient(null);
+        HttpClient.setRetryPolicy(RetryPolicy.DEFAULT);
+    }
+
+    @Test
+    public void bodyFailingMidReadIsNotStreamedAgain () throws Exception {
+        List<String> visited = new ArrayList<String>();
+        try {
+            new BlockExplorer().streamBlock("0000000000000bae09a7a393a8acded75aa67e46cb81f7acaa5ad94f9eacd103", new BlockVisitor() {
+                @Override
+                public boolean visitTransaction (Transaction transaction) {
+                    visited.add(transaction.getHash());
+                    return true;
+                }
+            });
+            fail("Expected the truncated body to fail");
+        } catch (IOException e) {
+            assertEquals(1, requests.get());
+            assertEquals(1, visited.size());
+        }
+    }
+
+    /**
+     * Sends the requests of the service classes to the local server.
+     */
+    private static class LocalClient implements HttpClientInterface {
+        private final HttpClient client = new HttpClient();
+        private final String baseURL;
+
+        LocalClient (String baseURL) {
+            this.baseURL = baseURL;
+        }
+
+        @Override
+        public String get (String resource, Map<String, String> params) throws APIException, IOException {
+            return client.get(baseURL, resource, params);
+        }
+
+        @Override
+        public String get (String baseURL, String resource, Map<String, String> params) throws APIException, IOException {
+            return get(resource, params);
+        }
+
+        @Override
+        public <T> T get (String resource, Map<String, String> params, ResponseHandler<T> handler) throws APIException, IOException {
+            return client.get(baseURL, resource, params, handler);
+        }
+
+        @Override
+        public <T> T get (String baseURL, String resource, Map<String, String> params, ResponseHandler<T> handler) throws APIException, IOException {
+            return get(resource, params, handler);
+        }
+
+        @Override
+        public String post (String resource, Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String post (String baseURL, String resource, Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package info.blockchain.api.blockexplorer;
+
+import com.google.gson.stream.JsonReader;
+import info.blockchain.api.blockexplorer.entity.Block;
+import info.blockchain.api.blockexplorer.entity.Transaction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class DiskBlockStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Block block;
+
+    @Before
+    public void setUp () throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/rawblock.json");
+             JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            block = Block.read(reader);
+        }
+    }
+
+    @Test
+    public void blockSurvivesReopening () throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (DiskBlockStore store = open(directory)) {
+            assertNull(store.getBlock(block.getHash()));
+            store.putBlock(block.getHash(), block);
+        }
+
+        try (DiskBlockStore store = open(directory)) {
+            Block stored = store.getBlock(block.getHash());
+            assertEquals(block, stored);
+            assertEquals(block.getTransactions(), stored.getTransactions());
+            assertEquals(block.getTransactions().get(1).getInputs(), stored.getTransactions().get(1).getInputs());
+            assertEquals(block.getRelayedBy(), stored.getRelayedBy());
+            assertEquals(1, store.getStats().getHits());
+        }
+    }
+
+    @Test
+    public void blocksAtHeightAreStoredByHash () throws Exception {
+        try (DiskBlockStore store = open(folder.getRoot().toPath())) {
+            store.putBlocksAtHeight(block.getHeight(), Arrays.asList(block));
+
+            List<Block> blocks = store.getBlocksAtHeight(block.getHeight());
+            assertEquals(Arrays.asList(block), blocks);
+            assertEquals(block, store.getBlock(block.getHash()));
+            assertNull(store.getBlocksAtHeight(block.getHeight() + 1));
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    public void heightWithOrphanedBlockIsNotStored () throws Exception {
+        Block orphan = new Block(block.getHeight(), "orphan", 0, false, 1, "prev", "root", 0, 0, 0, 285, 1, 0, "0.0.0.0",
+                Collections.<Transaction>emptyList());
+        try (DiskBlockStore store = open(folder.getRoot().toPath())) {
+            store.putBlocksAtHeight(block.getHeight(), Arrays.asList(block, orphan));
+
+            assertNull(store.getBlocksAtHeight(block.getHeight()));
+            assertNull(store.getBlock("orphan"));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void failedWriteIsCountedInsteadOfThrown () throws Exception {
+        Path fullDevice = Paths.get("/dev/full");
+        assumeTrue(Files.exists(fullDevice));
+        Path directory = folder.getRoot().toPath();
+        Files.createSymbolicLink(directory.resolve("segment-00000.dat"), fullDevice);
+
+        try (DiskBlockStore store = open(directory)) {
+            store.putBlock(block.getHash(), block);
+
+            assertNull(store.getBlock(block.getHash()));
+            assertEquals(1, store.getWriteFailures());
+            assertNotNull(store.getLastWriteFailure());
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void shallowEntriesAreNotStored () throws Exception {
+        try (DiskBlockStore store = new DiskBlockStore(folder.getRoot().toPath())) {
+            store.updateChainHeight(block.getHeight() + 4);
+            store.putBlock(block.getHash(), block);
+            store.putTransaction("tx", block.getTransactions().get(0));
+            store.putBlocksAtHeight(block.getHeight(), Arrays.asList(block));
+            assertEquals(0, store.size());
+
+            store.updateChainHeight(block.getHeight() + 5);
+            store.putBlock(block.getHash(), block);
+            assertEquals(block, store.getBlock(block.getHash()));
+        }
+    }
+
+    @Test
+    public void onlyConfirmedTransactionsAreStored () throws Exception {
+        Transaction confirmed = block.getTransactions().get(0);
+        Transaction unconfirmed = new Transaction(false, -1, 0, 0, null, "unconfirmed", 1, 1, 100,
+                confirmed.getInputs(), confirmed.getOutputs());
+
+        try (DiskBlockStore store = open(folder.getRoot().toPath())) {
+            store.putTransaction(confirmed.getHash(), confirmed);
+            store.putTransaction("unconfirmed", unconfirmed);
+
+            assertEquals(confirmed, store.getTransaction(confirmed.getHash()));
+            assertEquals(block.getHeight(), store.getTransaction(confirmed.getHash()).getBlockHeight());
+            assertNull(store.getTransaction("unconfirmed"));
+        }
+    }
+
+    @Test
+    public void recordsAreSplitIntoSegments () throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (DiskBlockStore store = open(directory, 1024)) {
+            for (Transaction tx : block.getTransactions()) {
+                store.putTransaction(tx.getHash(), tx);
+            }
+            for (Transaction tx : block.getTransactions()) {
+                assertEquals(tx, store.getTransaction(tx.getHash()));
+            }
+        }
+        assertTrue(Files.exists(directory.resolve("segment-00001.dat")));
+    }
+
+    @Test
+    public void partlyWrittenIndexRecordIsIgnored () throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (DiskBlockStore store = open(directory)) {
+            store.putBlock(block.getHash(), block);
+        }
+        Files.write(directory.resolve("index.dat"), new byte[] {0, 40, 'b'}, StandardOpenOption.APPEND);
+
+        try (DiskBlockStore store = open(directory)) {
+            assertEquals(block, store.getBlock(block.getHash()));
+            store.putTransaction("tx", block.getTransactions().get(0));
+        }
+        try (DiskBlockStore store = open(directory)) {
+            assertEquals(2, store.size());
+        }
+    }
+
+    /**
+     * Opens a store that knows the fixture block is deep enough to be stored.
+     */
+    private DiskBlockStore open (Path directory) throws IOException {
+        return open(directory, DiskBlockStore.DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    private DiskBlockStore open (Path directory, long maxSegmentSize) throws IOException {
+        DiskBlockStore store = new DiskBlockStore(directory, maxSegmentSize);
+        store.updateChainHeight(block.getHeight() + 100);
+        return store;
+    }
+}
@@ -0,0 +1,121 @@
+package info.blockchain.api.blockexplorer;
+
+import info.blockchain.api.blockexplorer.entity.Block;
+import info.blockchain.api.blockexplorer.entity.Input;
+import info.blockchain.api.blockexplorer.entity.Output;
+import info.blockchain.api.blockexplorer.entity.Transaction;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class LruBlockExplorerCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+
+    @Test
+    public void confirmedEntriesDoNotExpire () {
+        LruBlockExplorerCache cache = newCache(10, 10000);
+        Transaction tx = transaction("a", 500000, 100);
+        cache.updateChainHeight(500005);
+        cache.putTransaction("a", tx);
+
+        now.addAndGet(365L * 24 * 3600 * 1000);
+        assertSame(tx, cache.getTransaction("a"));
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    @Test
+    public void unconfirmedEntriesExpire () {
+        LruBlockExplorerCache cache = newCache(10, 10000);
+        cache.putTransaction("a", transaction("a", -1, 100));
+        assertNotNull(cache.getTransaction("a"));
+
+        now.addAndGet(LruBlockExplorerCache.DEFAULT_UNCONFIRMED_TTL_MS);
+        assertNull(cache.getTransaction("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+        assertEquals(0.5, cache.getStats().getHitRate(), 0);
+    }
+
+    @Test
+    public void shallowEntriesExpireLikeUnconfirmedOnes () {
+        LruBlockExplorerCache cache = newCache(10, 10000);
+        cache.updateChainHeight(500004);
+        cache.putTransaction("a", transaction("a", 500000, 100));
+        cache.putBlock("b", new Block(500004, "b", 0, true, 1, "prev", "root", 0, 0, 0, 100, 1, 0, "0.0.0.0",
+                Collections.<Transaction>emptyList()));
+
+        now.addAndGet(LruBlockExplorerCache.DEFAULT_UNCONFIRMED_TTL_MS);
+        assertNull(cache.getTransaction("a"));
+        assertNull(cache.getBlock("b"));
+    }
+
+    @Test
+    public void depthIsCountedFromHighestHeightSeen () {
+        LruBlockExplorerCache cache = newCache(10, 10000);
+        cache.putTransaction("a", transaction("a", 500000, 100));
+        cache.putTransaction("b", transaction("b", 500005, 100));
+        cache.putTransaction("c", transaction("c", 500000, 100));
+
+        now.addAndGet(LruBlockExplorerCache.DEFAULT_UNCONFIRMED_TTL_MS);
+        assertNull(cache.getTransaction("a"));
+        assertNull(cache.getTransaction("b"));
+        assertNotNull(cache.getTransaction("c"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedByCount () {
+        LruBlockExplorerCache cache = newCache(2, 10000);
+        cache.putTransaction("a", transaction("a", 1, 10));
+        cache.putTransaction("b", transaction("b", 1, 10));
+        cache.getTransaction("a");
+        cache.putTransaction("c", transaction("c", 1, 10));
+
+        assertNotNull(cache.getTransaction("a"));
+        assertNull(cache.getTransaction("b"));
+        assertNotNull(cache.getTransaction("c"));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void entriesAreEvictedByWeight () {
+        LruBlockExplorerCache cache = newCache(10, 250);
+        cache.putBlock("a", block("a", 100));
+        cache.putBlock("b", block("b", 100));
+        cache.putBlock("c", block("c", 100));
+
+        assertNull(cache.getBlock("a"));
+        assertEquals(2, cache.size());
+        assertEquals(200, cache.weight());
+
+        cache.putBlock("huge", block("huge", 1000));
+        assertNull(cache.getBlock("huge"));
+        assertEquals(200, cache.weight());
+    }
+
+    @Test
+    public void blocksAndTransactionsDoNotShareKeys () {
+        LruBlockExplorerCache cache = newCache(10, 10000);
+        cache.putBlock("1", block("1", 10));
+        assertNull(cache.getTransaction("1"));
+        assertNotNull(cache.getBlock("1"));
+    }
+
+    private LruBlockExplorerCache newCache (int maxEntries, long maxWeight) {
+        return new LruBlockExplorerCache(maxEntries, maxWeight, Long.MAX_VALUE, LruBlockExplorerCache.DEFAULT_UNCONFIRMED_TTL_MS,
+                LruBlockExplorerCache.DEFAULT_MIN_CONFIRMATIONS, now::get);
+    }
+
+    private static Transaction transaction (String hash, long blockHeight, long size) {
+        return new Transaction(false, blockHeight, 0, 0, "0.0.0.0", hash, 1, 1, size,
+                Collections.<Input>emptyList(), Collections.<Output>emptyList());
+    }
+
+    private static Block block (String hash, long size) {
+        return new Block(1, hash, 0, true, 1, "prev", "root", 0, 0, 0, size, 1, 0, "0.0.0.0",
+                Collections.<Transaction>emptyList());
+    }
+}
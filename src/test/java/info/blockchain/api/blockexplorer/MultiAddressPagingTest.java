@@ -0,0 +1,103 @@
+package info.blockchain.api.blockexplorer;
+
+import info.blockchain.api.HttpClient;
+import info.blockchain.api.HttpClientInterface;
+import info.blockchain.api.blockexplorer.entity.MultiAddress;
+import info.blockchain.api.blockexplorer.entity.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MultiAddressPagingTest {
+
+    // Transactions per address
+    private static final int TXS = 250;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private int maxActiveParamLength;
+
+    @Before
+    public void setUp () {
+        maxActiveParamLength = BlockExplorer.MAX_ACTIVE_PARAM_LENGTH;
+        // Every address is requested on its own
+        BlockExplorer.MAX_ACTIVE_PARAM_LENGTH = 5;
+        HttpClient.setCustomHttpClient(new MultiAddressClient());
+    }
+
+    @After
+    public void after () {
+        BlockExplorer.MAX_ACTIVE_PARAM_LENGTH = maxActiveParamLength;
+        HttpClient.setCustomHttpClient(null);
+    }
+
+    @Test
+    public void pageBeyondServerLimitIsAssembledFromSeveralRequests () throws Exception {
+        MultiAddress multiAddress = new BlockExplorer().getMultiAddress(Arrays.asList("addr1", "addr2"), null, 50, 200);
+
+        List<Transaction> txs = multiAddress.getTxs();
+        assertEquals(50, txs.size());
+        for (int i = 0; i < txs.size(); i++) {
+            assertEquals(2 * TXS - 1 - 200 - i, txs.get(i).getTime());
+        }
+        assertEquals(2 * TXS, multiAddress.getMultiAddressBalance().getTxCount());
+        assertEquals(2, multiAddress.getAddresses().size());
+        // Each address needs 3 pages of at most 100 transactions for the newest 250
+        assertEquals(6, requests.get());
+    }
+
+    @Test
+    public void pagingStopsAtLastTransaction () throws Exception {
+        MultiAddress multiAddress = new BlockExplorer().getMultiAddress(Arrays.asList("addr1", "addr2"), null, 100, 450);
+
+        assertEquals(2 * TXS - 450, multiAddress.getTxs().size());
+        // The third page of each address is not full
+        assertEquals(6, requests.get());
+    }
+
+    /**
+     * Answers multiaddr requests for addresses addr1 and addr2, which have the odd and the
+     * even transaction times below 2 * TXS, returning at most 100 transactions per request.
+     */
+    private class MultiAddressClient implements HttpClientInterface {
+        @Override
+        public String get (String resource, Map<String, String> params) {
+            requests.incrementAndGet();
+            String address = params.get("active");
+            int first = address.equals("addr1") ? 1 : 0;
+            int offset = Integer.parseInt(params.get("offset"));
+            int n = Math.min(100, Integer.parseInt(params.get("n")));
+
+            List<String> txs = new ArrayList<String>();
+            for (int i = offset; i < Math.min(offset + n, TXS); i++) {
+                long time = 2 * (TXS - 1 - i) + first;
+                txs.add("{\"hash\":\"" + address + "-" + i + "\",\"time\":" + time + ",\"lock_time\":0,\"relayed_by\":\"0.0.0.0\","
+                        + "\"tx_index\":" + time + ",\"ver\":1,\"size\":100,\"inputs\":[],\"out\":[]}");
+            }
+            return "{\"wallet\":{\"n_tx\":" + TXS + "},\"addresses\":[{\"address\":\"" + address + "\",\"n_tx\":" + TXS + "}],"
+                    + "\"txs\":[" + String.join(",", txs) + "]}";
+        }
+
+        @Override
+        public String get (String baseURL, String resource, Map<String, String> params) {
+            return get(resource, params);
+        }
+
+        @Override
+        public String post (String resource, Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String post (String baseURL, String resource, Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
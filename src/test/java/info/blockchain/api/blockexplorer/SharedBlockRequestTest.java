@@ -0,0 +1,99 @@
+package info.blockchain.api.blockexplorer;
+
+import info.blockchain.api.AsyncExecutor;
+import info.blockchain.api.HttpClient;
+import info.blockchain.api.HttpClientInterface;
+import info.blockchain.api.blockexplorer.entity.Block;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SharedBlockRequestTest {
+
+    private static final String HASH = "0000000000000bae09a7a393a8acded75aa67e46cb81f7acaa5ad94f9eacd103";
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AsyncExecutor executor;
+
+    @Before
+    public void setUp () throws Exception {
+        String block;
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/rawblock.json")) {
+            block = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        HttpClient.setCustomHttpClient(new HeldClient(block));
+        executor = new AsyncExecutor(2);
+    }
+
+    @After
+    public void after () {
+        release.countDown();
+        HttpClient.setCustomHttpClient(null);
+        executor.close();
+    }
+
+    @Test
+    public void sharedRequestFillsTheCacheOfEveryCaller () throws Exception {
+        BlockExplorerCache leaderCache = new LruBlockExplorerCache();
+        BlockExplorerCache followerCache = new LruBlockExplorerCache();
+
+        CompletableFuture<Block> leader = (CompletableFuture<Block>) new BlockExplorer(null, executor, leaderCache).getBlockAsync(HASH);
+        CompletableFuture<Block> follower = (CompletableFuture<Block>) new BlockExplorer(null, executor, followerCache).getBlockAsync(HASH);
+        release.countDown();
+
+        assertEquals(HASH, leader.get(5, TimeUnit.SECONDS).getHash());
+        assertEquals(HASH, follower.get(5, TimeUnit.SECONDS).getHash());
+        assertEquals(1, requests.get());
+        assertNotNull(leaderCache.getBlock(HASH));
+        assertNotNull(followerCache.getBlock(HASH));
+    }
+
+    /**
+     * Answers every request with the fixture block once the test releases it.
+     */
+    private class HeldClient implements HttpClientInterface {
+        private final String block;
+
+        HeldClient (String block) {
+            this.block = block;
+        }
+
+        @Override
+        public String get (String resource, Map<String, String> params) throws IOException {
+            requests.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return block;
+        }
+
+        @Override
+        public String get (String baseURL, String resource, Map<String, String> params) throws IOException {
+            return get(resource, params);
+        }
+
+        @Override
+        public String post (String resource, Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String post (String baseURL, String resource, Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package info.blockchain.api.blockexplorer.entity;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AddressDictionaryTest {
+    private static final String ADDRESS = "1BoatSLRHtKNngkdXEeobR76b53LETtpyT";
+
+    @After
+    public void tearDown () {
+        AddressDictionary.setCapacity(AddressDictionary.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    public void outputsShareEqualAddresses () {
+        Output first = new Output(0, 1, new String(ADDRESS), 7, "76a9", false);
+        Output second = new Output(1, 2, new String(ADDRESS), 8, "76a9", true);
+
+        assertSame(first.getAddress(), second.getAddress());
+        assertTrue(second.isSpentToAddress());
+        assertFalse(new Output(0, 1, "", 7, "76a9", false).isSpentToAddress());
+    }
+
+    @Test
+    public void capacityIsRoundedToPowerOfTwo () {
+        AddressDictionary.setCapacity(1000);
+        assertEquals(1024, AddressDictionary.getCapacity());
+        AddressDictionary.setCapacity(1);
+        assertEquals(1, AddressDictionary.getCapacity());
+    }
+
+    @Test
+    public void fullTableReplacesEntries () {
+        AddressDictionary.setCapacity(1);
+        String first = new String(ADDRESS);
+        assertSame(first, AddressDictionary.intern(first));
+        assertSame(first, AddressDictionary.intern(new String(ADDRESS)));
+
+        String other = "1dice8EMZmqKvrGE4Qc9bUFf9PX3xaYDp";
+        assertSame(other, AddressDictionary.intern(other));
+        assertNotSame(first, AddressDictionary.intern(new String(ADDRESS)));
+    }
+
+    @Test
+    public void zeroCapacityTurnsDictionaryOff () {
+        AddressDictionary.setCapacity(0);
+        String address = new String(ADDRESS);
+
+        AddressDictionary.intern(ADDRESS);
+        assertSame(address, AddressDictionary.intern(address));
+    }
+}
@@ -0,0 +1,203 @@
+package info.blockchain.api.blockexplorer.entity;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import info.blockchain.api.etc.Hex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+public class BlockReadTest {
+
+    private String json;
+
+    @Before
+    public void setUp () throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/rawblock.json");
+             Scanner scanner = new Scanner(new InputStreamReader(in, StandardCharsets.UTF_8)).useDelimiter("\\A")) {
+            json = scanner.next();
+        }
+    }
+
+    @Test
+    public void streamingReadMatchesTreeParsing () throws Exception {
+        Block expected = new Block(new JsonParser().parse(json).getAsJsonObject());
+        Block actual = Block.read(new JsonReader(new StringReader(json)));
+
+        assertEquals(expected, actual);
+        assertEquals(expected.getTransactions(), actual.getTransactions());
+        assertEquals(expected.getReceivedTime(), actual.getReceivedTime());
+        assertEquals(expected.getBits(), actual.getBits());
+    }
+
+    @Test
+    public void transactionsGetBlockHeightListedAfterThem () throws Exception {
+        Block block = Block.read(new JsonReader(new StringReader(json)));
+
+        assertEquals(154595, block.getHeight());
+        for (Transaction tx : block.getTransactions()) {
+            assertEquals(154595, tx.getBlockHeight());
+        }
+    }
+
+    @Test
+    public void inputsAndOutputsAreRead () throws Exception {
+        Block block = Block.read(new JsonReader(new StringReader(json)));
+
+        Transaction coinbase = block.getTransactions().get(0);
+        assertNull(coinbase.getInputs().get(0).getPreviousOutput());
+        assertTrue(coinbase.getOutputs().get(0).isSpent());
+
+        Transaction tx = block.getTransactions().get(1);
+        Output previousOutput = tx.getInputs().get(0).getPreviousOutput();
+        assertEquals("1BoatSLRHtKNngkdXEeobR76b53LETtpyT", previousOutput.getAddress());
+        assertEquals(1000000, previousOutput.getValue());
+        assertTrue(previousOutput.isSpent());
+        assertTrue(tx.getOutputs().get(0).isSpentToAddress());
+        assertFalse(tx.getOutputs().get(1).isSpentToAddress());
+    }
+
+    @Test
+    public void compactBlockCanKeepAddressesAsHash160 () throws Exception {
+        Block block = Block.read(new JsonReader(new StringReader(json)));
+        Block compact = Block.readCompact(new JsonReader(new StringReader(json)), true);
+
+        assertEquals(block.getTransactions(), compact.getTransactions());
+        for (int i = 0; i < block.getTransactions().size(); i++) {
+            List<Output> expected = block.getTransactions().get(i).getOutputs();
+            List<Output> actual = compact.getTransactions().get(i).getOutputs();
+            for (int j = 0; j < expected.size(); j++) {
+                assertEquals(expected.get(j).getAddress(), actual.get(j).getAddress());
+                assertEquals(expected.get(j).isSpentToAddress(), actual.get(j).isSpentToAddress());
+            }
+        }
+        assertEquals("1BoatSLRHtKNngkdXEeobR76b53LETtpyT",
+                block.compact(true).getTransactions().get(1).getInputs().get(0).getPreviousOutput().getAddress());
+    }
+
+    @Test
+    public void scriptsAreKeptAsBytes () throws Exception {
+        Transaction expected = new Transaction(new JsonParser().parse(json).getAsJsonObject()
+                .getAsJsonArray("tx").get(1).getAsJsonObject());
+        Transaction tx = Block.read(new JsonReader(new StringReader(json))).getTransactions().get(1);
+
+        for (int i = 0; i < tx.getOutputs().size(); i++) {
+            Output output = tx.getOutputs().get(i);
+            assertEquals(expected.getOutputs().get(i).getScript(), output.getScript());
+            assertEquals(output.getScript(), Hex.encode(output.getScriptBytes()));
+        }
+        Input input = tx.getInputs().get(0);
+        assertEquals(expected.getInputs().get(0).getScriptSignature(), input.getScriptSignature());
+        assertEquals(input.getScriptSignature().length() / 2, input.getScriptSignatureBytes().length);
+        assertEquals((byte) 0x76, new Output(0, 1, "", 7, "76a9", false).getScriptBytes()[0]);
+    }
+
+    @Test
+    public void compactBlockMatchesFullBlock () throws Exception {
+        Block block = Block.read(new JsonReader(new StringReader(json)));
+        Block compact = block.compact();
+        Block readCompact = Block.readCompact(new JsonReader(new StringReader(json)));
+
+        assertEquals(block, compact);
+        assertEquals(block.getTransactions(), compact.getTransactions());
+        assertEquals(block.getTransactions(), readCompact.getTransactions());
+        for (int i = 0; i < block.getTransactions().size(); i++) {
+            Transaction expected = block.getTransactions().get(i);
+            Transaction actual = readCompact.getTransactions().get(i);
+            assertEquals(expected.getBlockHeight(), actual.getBlockHeight());
+            assertEquals(expected.getInputs(), actual.getInputs());
+            assertEquals(expected.getOutputs(), actual.getOutputs());
+            for (int j = 0; j < expected.getOutputs().size(); j++) {
+                assertEquals(expected.getOutputs().get(j).isSpent(), actual.getOutputs().get(j).isSpent());
+                assertEquals(expected.getOutputs().get(j).isSpentToAddress(), actual.getOutputs().get(j).isSpentToAddress());
+            }
+        }
+        assertSame(compact.getTransactions().get(1), compact.getTransactions().get(1).compact());
+    }
+
+    @Test
+    public void compactTransactionsShareAddresses () throws Exception {
+        Transaction tx = Block.readCompact(new JsonReader(new StringReader(json))).getTransactions().get(1);
+        Output previousOutput = tx.getInputs().get(0).getPreviousOutput();
+
+        assertEquals("1BoatSLRHtKNngkdXEeobR76b53LETtpyT", previousOutput.getAddress());
+        try {
+            tx.getOutputs().add(previousOutput);
+            fail("Compact outputs must not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        Output output = new Output(0, 1, new String("1BoatSLRHtKNngkdXEeobR76b53LETtpyT"), 7, "76a9", false);
+        Transaction copy = new Transaction(false, 1, 0, 0, null, "hash", 7, 1, 0,
+                new ArrayList<Input>(tx.getInputs()), Collections.singletonList(output)).compact();
+        assertSame(copy.getInputs().get(0).getPreviousOutput().getAddress(), copy.getOutputs().get(0).getAddress());
+    }
+
+    @Test
+    public void streamVisitsEveryPartOfTheBlock () throws Exception {
+        int[] counts = new int[3];
+        Block[] header = new Block[1];
+
+        boolean completed = Block.stream(new JsonReader(new StringReader(json)), new BlockVisitor() {
+            @Override
+            public boolean visitInput (Input input) {
+                counts[0]++;
+                return true;
+            }
+
+            @Override
+            public boolean visitOutput (Output output) {
+                counts[1]++;
+                return true;
+            }
+
+            @Override
+            public boolean visitTransaction (Transaction transaction) {
+                assertEquals(154595, transaction.getBlockHeight());
+                counts[2]++;
+                return true;
+            }
+
+            @Override
+            public void visitBlock (Block block) {
+                header[0] = block;
+            }
+        });
+
+        assertTrue(completed);
+        assertArrayEquals(new int[]{2, 3, 2}, counts);
+        assertEquals("0000000000000bae09a7a393a8acded75aa67e46cb81f7acaa5ad94f9eacd103", header[0].getHash());
+        assertTrue(header[0].getTransactions().isEmpty());
+    }
+
+    @Test
+    public void streamStopsWhenVisitorReturnsFalse () throws Exception {
+        int[] transactions = new int[1];
+
+        boolean completed = Block.stream(new JsonReader(new StringReader(json)), new BlockVisitor() {
+            @Override
+            public boolean visitTransaction (Transaction transaction) {
+                transactions[0]++;
+                return false;
+            }
+
+            @Override
+            public void visitBlock (Block block) {
+                fail("The block must not be visited after stopping");
+            }
+        });
+
+        assertFalse(completed);
+        assertEquals(1, transactions[0]);
+    }
+}
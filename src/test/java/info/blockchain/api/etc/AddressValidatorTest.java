@@ -0,0 +1,99 @@
+package info.blockchain.api.etc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class AddressValidatorTest {
+    private static final String P2PKH = "1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2";
+    private static final String P2SH = "3J98t1WpEZ73CNmQviecrnyiWrnqRhWNLy";
+
+    @Test
+    public void classifiesValidAndInvalidAddresses () {
+        ValidatedAddresses result = AddressValidator.validate(Arrays.asList(
+                P2PKH, " " + P2SH + "\n", "1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN3", "not an address", null, "1z"));
+
+        assertEquals(6, result.size());
+        assertEquals(2, result.getValidCount());
+        BitSet expected = new BitSet();
+        expected.set(0, 2);
+        assertEquals(expected, result.getValid());
+
+        assertEquals(ValidatedAddresses.Type.P2PKH, result.getType(0));
+        assertEquals(0, result.getVersion(0));
+        assertEquals(ValidatedAddresses.Type.P2SH, result.getType(1));
+        assertEquals(5, result.getVersion(1));
+        assertEquals(P2SH, result.getAddress(1));
+
+        assertFalse(result.isValid(2));
+        assertEquals(-1, result.getVersion(2));
+        assertNull(result.getType(4));
+        assertNull(result.getHash160(5));
+    }
+
+    @Test
+    public void hash160sMatchDecodedAddresses () throws Exception {
+        ValidatedAddresses result = AddressValidator.validate(Stream.of(P2PKH, P2SH));
+        byte[] decoded = Base58.decodeChecked(P2PKH);
+
+        assertArrayEquals(Arrays.copyOfRange(decoded, 1, 21), result.getHash160(0));
+        byte[] output = new byte[24];
+        assertTrue(result.getHash160(0, output, 4));
+        assertArrayEquals(Arrays.copyOfRange(decoded, 1, 21), Arrays.copyOfRange(output, 4, 24));
+    }
+
+    @Test
+    public void distinctValidAddressesKeepFirstOccurrence () {
+        ValidatedAddresses result = AddressValidator.validate(Arrays.asList(P2SH, "x", P2PKH, P2SH + " ", P2PKH));
+
+        assertEquals(Arrays.asList(P2SH, P2PKH), result.getDistinctValidAddresses());
+    }
+
+    @Test
+    public void largeListsAreValidatedInParallel () {
+        Random random = new Random(160);
+        List<String> addresses = new ArrayList<String>();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < AddressValidator.PARALLEL_THRESHOLD * 3 + 17; i++) {
+            byte[] payload = new byte[25];
+            random.nextBytes(payload);
+            payload[0] = (byte) (i % 3 == 0 ? 0x6F : 0x00);
+            System.arraycopy(Base58.hashTwice(Arrays.copyOf(payload, 21)), 0, payload, 21, 4);
+            if (i % 7 == 0) {
+                payload[24] ^= 1;
+            } else {
+                expected.set(i);
+            }
+            addresses.add(Base58.encode(payload));
+        }
+
+        ValidatedAddresses result = AddressValidator.validate(addresses);
+
+        assertEquals(expected, result.getValid());
+        assertEquals(ValidatedAddresses.Type.TESTNET_P2PKH, result.getType(3));
+        assertEquals(ValidatedAddresses.Type.P2PKH, result.getType(addresses.size() - 1));
+    }
+
+    @Test
+    public void singleAddressValidation () {
+        assertTrue(AddressValidator.isValid(P2PKH));
+        assertFalse(AddressValidator.isValid(" " + P2PKH));
+        assertFalse(AddressValidator.isValid("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN20"));
+        assertFalse(AddressValidator.isValid(null));
+    }
+
+    @Test
+    public void decodeWritesVersionAndHash160 () throws Exception {
+        byte[] output = new byte[22];
+        assertTrue(AddressValidator.decode(P2SH, output, 1));
+        assertArrayEquals(Base58.decodeChecked(P2SH), Arrays.copyOfRange(output, 1, 22));
+        assertFalse(AddressValidator.decode("bc1qar0srrr7xfkvy5l643lydnw9re59gtzzwf5mdq", output, 1));
+    }
+}
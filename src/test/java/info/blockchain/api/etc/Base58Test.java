@@ -0,0 +1,133 @@
+package info.blockchain.api.etc;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Base58Test {
+    private static final String[][] VECTORS = {
+            {"", ""},
+            {"61", "2g"},
+            {"626262", "a3gV"},
+            {"636363", "aPEr"},
+            {"516b6fcd0f", "ABnLTmg"},
+            {"10c8511e", "Rt5zm"},
+            {"ecac89cad93923c02321", "EJDM8drfXA6uyA"},
+            {"00000000000000000000", "1111111111"},
+            {"00eb15231dfceb60925886b67d065299925915aeb172c06647", "1NS17iag9jJgTHD1VXjvLCEnZuQ3rJDE9L"},
+            {"000111d38e5fc9071ffcd20b4a763cc9ae4f252bb4e48fd66a835e252ada93ff480d6dd43dc62a641155a5",
+                    "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz"},
+    };
+
+    @Test
+    public void encodesAndDecodesKnownVectors () throws Exception {
+        for (String[] vector : VECTORS) {
+            byte[] bytes = hex(vector[0]);
+            assertEquals(vector[1], Base58.encode(bytes));
+            assertArrayEquals(bytes, Base58.decode(vector[1]));
+        }
+    }
+
+    @Test
+    public void matchesBigIntegerConversionForRandomInputs () throws Exception {
+        Random random = new Random(58);
+        for (int i = 0; i < 2000; i++) {
+            byte[] bytes = new byte[random.nextInt(100)];
+            random.nextBytes(bytes);
+            for (int zeros = random.nextInt(4), j = 0; j < zeros && j < bytes.length; j++) {
+                bytes[j] = 0;
+            }
+            String encoded = Base58.encode(bytes);
+            assertEquals(reference(bytes), encoded);
+            assertTrue(encoded.length() <= Base58.maxEncodedLength(bytes.length));
+            assertArrayEquals(bytes, Base58.decode(encoded));
+        }
+    }
+
+    @Test
+    public void bufferOverloadsWriteAtOffset () throws Exception {
+        byte[] bytes = hex("00eb15231dfceb60925886b67d065299925915aeb172c06647");
+        char[] chars = new char[2 + Base58.maxEncodedLength(bytes.length)];
+        int length = Base58.encode(bytes, 0, bytes.length, chars, 2);
+        assertEquals("1NS17iag9jJgTHD1VXjvLCEnZuQ3rJDE9L", new String(chars, 2, length));
+
+        byte[] decoded = new byte[3 + length];
+        assertEquals(25, Base58.decode("1NS17iag9jJgTHD1VXjvLCEnZuQ3rJDE9L", decoded, 3));
+        assertArrayEquals(bytes, Arrays.copyOfRange(decoded, 3, 28));
+
+        byte[] data = new byte[21];
+        assertEquals(21, Base58.decodeChecked("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2", data, 0));
+        assertArrayEquals(Base58.decodeChecked("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2"), data);
+    }
+
+    @Test
+    public void encodeCheckedIsInverseOfDecodeChecked () throws Exception {
+        byte[] data = Base58.decodeChecked("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2");
+        byte[] padded = new byte[data.length + 3];
+        System.arraycopy(data, 0, padded, 3, data.length);
+
+        assertEquals("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2", Base58.encodeChecked(padded, 3, data.length));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void tooSmallBufferIsRejected () {
+        Base58.encode(new byte[]{1, 2, 3}, 0, 3, new char[2], 0);
+    }
+
+    @Test
+    public void decodeCheckedVerifiesChecksum () throws Exception {
+        assertEquals(21, Base58.decodeChecked("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2").length);
+        assertParseError("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN3", "Checksum does not validate");
+        assertParseError("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN0", "Illegal character 0 at position 33");
+        assertParseError("1z", "Input too short");
+    }
+
+    @Test
+    public void hashTwiceIsDoubleSha256 () throws Exception {
+        byte[] data = "hello".getBytes("US-ASCII");
+        byte[] once = java.security.MessageDigest.getInstance("SHA-256").digest(data);
+        byte[] expected = java.security.MessageDigest.getInstance("SHA-256").digest(once);
+        assertArrayEquals(expected, Base58.hashTwice(data));
+
+        byte[] output = new byte[40];
+        Base58.hashTwice(data, 0, data.length, output, 8);
+        assertArrayEquals(expected, Arrays.copyOfRange(output, 8, 40));
+    }
+
+    private static void assertParseError (String input, String message) {
+        try {
+            Base58.decodeChecked(input);
+            fail("Expected ParseException for " + input);
+        } catch (ParseException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static String reference (byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        BigInteger value = new BigInteger(1, bytes);
+        BigInteger base = BigInteger.valueOf(58);
+        while (value.signum() > 0) {
+            BigInteger[] divmod = value.divideAndRemainder(base);
+            builder.append(Base58.ALPHABET[divmod[1].intValue()]);
+            value = divmod[0];
+        }
+        for (int i = 0; i < bytes.length && bytes[i] == 0; i++) {
+            builder.append(Base58.ALPHABET[0]);
+        }
+        return builder.reverse().toString();
+    }
+
+    private static byte[] hex (String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,29 @@
+package info.blockchain.api.etc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HexTest {
+
+    @Test
+    public void roundTripsBytes () {
+        byte[] bytes = {0, 1, 0x7F, (byte) 0x80, (byte) 0xAB, (byte) 0xFF};
+
+        assertEquals("00017f80abff", Hex.encode(bytes));
+        assertArrayEquals(bytes, Hex.decode("00017f80abff"));
+        assertArrayEquals(bytes, Hex.decode("00017F80ABFF"));
+        assertEquals("", Hex.encode(new byte[0]));
+        assertArrayEquals(new byte[0], Hex.decode(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void oddLengthIsRejected () {
+        Hex.decode("abc");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonHexCharacterIsRejected () {
+        Hex.decode("0g");
+    }
+}